@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.FriendshipImportResult;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.service.FilmCache;
+import ru.yandex.practicum.filmorate.service.FriendshipImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Служебные операции, не относящиеся к пользовательскому API.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    private final ReferenceDataCache referenceData;
+    private final FilmCache filmCache;
+    private final FriendshipImportService friendshipImportService;
+
+    /**
+     * Перечитывает справочники (жанры, MPA, статусы дружбы) после их изменения в базе.
+     * Кэш фильмов сбрасывается, так как содержит названия жанров и рейтингов.
+     */
+    @PostMapping("/reference-data/reload")
+    public void reloadReferenceData() {
+        log.info("Reference data reload requested");
+        referenceData.reload();
+        filmCache.invalidateAll();
+    }
+
+    /**
+     * Импортирует граф дружбы из CSV в теле запроса: строки user_id,friend_id[,status],
+     * где status - PENDING или CONFIRMED (по умолчанию CONFIRMED). Тело читается потоком, не целиком.
+     */
+    @PostMapping(value = "/friendships/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public FriendshipImportResult importFriendships(InputStream body) throws IOException {
+        return friendshipImportService.importCsv(body);
+    }
+}
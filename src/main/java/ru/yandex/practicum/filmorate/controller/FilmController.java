@@ -1,11 +1,20 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 
@@ -17,15 +26,65 @@ import java.util.List;
 @RestController
 @RequestMapping("/films") // Базовый путь для всех эндпоинтов этого контроллера
 public class FilmController {
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Без параметров возвращает все фильмы. При указании limit и/или cursor - одну страницу,
+     * курсор следующей страницы передаётся в заголовке {@value PageResponses#NEXT_CURSOR_HEADER}.
+     */
     @GetMapping
-    public List<Film> findAll() {
-        return filmService.findAll();
+    public ResponseEntity<List<Film>> findAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(filmService.findAll());
+        }
+        Page<Film> page = filmService.findPage(cursor, limit == null ? PageResponses.DEFAULT_PAGE_SIZE : limit);
+        return PageResponses.toResponse(page);
+    }
+
+    /**
+     * Потоковая выгрузка всего каталога в формате NDJSON (один фильм с жанрами на строку).
+     * Фильмы пишутся в ответ по мере чтения из базы, поэтому расход памяти не зависит от размера каталога.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        StreamingResponseBody body = out -> {
+            try {
+                filmService.exportAll(film -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(film));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q,
+                             @RequestParam(defaultValue = "0") int offset,
+                             @RequestParam(defaultValue = "20") int limit) {
+        return filmService.search(q, offset, limit);
+    }
+
+    @GetMapping("/autocomplete")
+    public List<FilmSuggestion> autocomplete(@RequestParam String prefix,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return filmService.autocomplete(prefix, limit);
     }
 
     @GetMapping("/{id}")
@@ -38,6 +97,15 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    /**
+     * Массовое создание фильмов. Некорректные элементы не прерывают импорт:
+     * результат содержит идентификатор или ошибку для каждого элемента.
+     */
+    @PostMapping("/bulk")
+    public BulkResult addFilms(@RequestBody List<Film> films) {
+        return filmService.createAll(films);
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.update(film);
@@ -55,7 +123,17 @@ public class FilmController {
 
     @GetMapping("/popular")
     public List<Film> getPopularFilms(
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer mpaId,
+            @RequestParam(required = false) Integer year) {
+        return filmService.getPopularFilms(count, genreId, mpaId, year);
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(
+            @RequestParam(defaultValue = "24h") String window,
             @RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+        return filmService.getTrendingFilms(window, count);
     }
 }
@@ -3,11 +3,16 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.BulkResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.repository.FriendshipStatusRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.service.FriendService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -21,13 +26,23 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
-    private final FriendshipStatusRepository statusRepository;
+    private final ReferenceDataCache referenceData;
     private final FriendService friendService;
+    private final RecommendationService recommendationService;
 
     // Основные операции с пользователями
+    /**
+     * Без параметров возвращает всех пользователей. При указании limit и/или cursor - одну страницу,
+     * курсор следующей страницы передаётся в заголовке {@value PageResponses#NEXT_CURSOR_HEADER}.
+     */
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.findAll();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(userService.findAll());
+        }
+        Page<User> page = userService.findPage(cursor, limit == null ? PageResponses.DEFAULT_PAGE_SIZE : limit);
+        return PageResponses.toResponse(page);
     }
 
     @GetMapping("/{id}")
@@ -49,20 +64,71 @@ public class UserController {
         return userService.update(user);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable int id,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        return recommendationService.getRecommendations(id, limit);
+    }
+
     // Расширенные операции с друзьями
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@PathVariable int id, @PathVariable int friendId) {
         friendService.addFriend(id, friendId);
     }
 
+    /**
+     * Без параметров возвращает всех друзей. При указании limit и/или afterId - одну порцию,
+     * упорядоченную по идентификатору; следующая порция запрашивается с afterId последнего друга.
+     */
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable Integer id) {
-        return friendService.getFriends(id);
+    public List<User> getFriends(@PathVariable Integer id,
+                                 @RequestParam(required = false) Integer limit,
+                                 @RequestParam(required = false) Integer afterId) {
+        if (limit == null && afterId == null) {
+            return friendService.getFriends(id);
+        }
+        return friendService.getFriendsPage(id, afterId == null ? 0 : afterId,
+                limit == null ? PageResponses.DEFAULT_PAGE_SIZE : limit);
+    }
+
+    @GetMapping("/{id}/friends/requests")
+    public List<User> getIncomingRequests(@PathVariable Integer id,
+                                          @RequestParam(defaultValue = "0") int afterId,
+                                          @RequestParam(defaultValue = "" + PageResponses.DEFAULT_PAGE_SIZE) int limit) {
+        return friendService.getIncomingRequests(id, afterId, limit);
+    }
+
+    @PutMapping("/{id}/friends/requests/confirm")
+    public BulkResult confirmFriendRequests(@PathVariable Integer id, @RequestBody List<Integer> requesterIds) {
+        return friendService.confirmRequests(id, requesterIds);
+    }
+
+    @PutMapping("/{id}/friends/requests/decline")
+    public BulkResult declineFriendRequests(@PathVariable Integer id, @RequestBody List<Integer> requesterIds) {
+        return friendService.declineRequests(id, requesterIds);
+    }
+
+    @GetMapping("/{id}/friends/count")
+    public int getFriendsCount(@PathVariable Integer id) {
+        return friendService.getFriendsCount(id);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Integer id,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        return friendService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public List<User> getFriendshipPath(@PathVariable Integer id,
+                                        @PathVariable Integer otherId,
+                                        @RequestParam(required = false) Integer maxDepth) {
+        return friendService.getFriendshipPath(id, otherId, maxDepth);
     }
 
     @GetMapping("/friendship-statuses")
     public List<FriendshipStatus> getAllFriendshipStatuses() {
-        return statusRepository.findAll();
+        return referenceData.getStatuses();
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
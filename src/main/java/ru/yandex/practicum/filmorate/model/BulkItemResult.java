@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки одного элемента массовой операции.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private int index;      // Позиция элемента во входных данных
+    private Integer id;     // Идентификатор созданной/изменённой записи
+    private String error;   // Описание ошибки, если элемент не обработан
+
+    public static BulkItemResult success(int index, Integer id) {
+        return new BulkItemResult(index, id, null);
+    }
+
+    public static BulkItemResult failure(int index, Integer id, String error) {
+        return new BulkItemResult(index, id, error);
+    }
+}
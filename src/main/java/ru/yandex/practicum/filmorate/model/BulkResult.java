@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Итог массовой операции: количество успешно и неуспешно обработанных элементов
+ * и результаты по каждому элементу в порядке входных данных.
+ */
+@Data
+public class BulkResult {
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> items = new ArrayList<>();
+
+    public void addSuccess(int index, Integer id) {
+        items.add(BulkItemResult.success(index, id));
+        succeeded++;
+    }
+
+    public void addFailure(int index, Integer id, String error) {
+        items.add(BulkItemResult.failure(index, id, error));
+        failed++;
+    }
+
+    /**
+     * Упорядочивает результаты по позиции элемента во входных данных.
+     *
+     * @return этот же объект
+     */
+    public BulkResult sorted() {
+        items.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+        return this;
+    }
+}
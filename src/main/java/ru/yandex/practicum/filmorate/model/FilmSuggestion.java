@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Подсказка автодополнения: фильм без деталей, только то, что нужно для выпадающего списка.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmSuggestion {
+    private int id;
+    private String name;
+    private long likes;
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог импорта графа дружбы: количество записанных и отклонённых связей, пропускная способность
+ * и первые отклонённые связи (index - номер строки во входных данных).
+ */
+@Data
+public class FriendshipImportResult {
+    private long imported;          // Записано связей
+    private long rejected;          // Отклонено связей
+    private long durationMs;        // Длительность импорта
+    private long edgesPerSecond;    // Количество записанных связей в секунду
+    private List<BulkItemResult> rejections = new ArrayList<>();
+
+    /**
+     * Учитывает отклонённую связь; в отчёт попадают не более maxReported первых отклонений.
+     */
+    public void addRejection(int lineNumber, String error, int maxReported) {
+        rejected++;
+        if (rejections.size() < maxReported) {
+            rejections.add(BulkItemResult.failure(lineNumber, null, error));
+        }
+    }
+}
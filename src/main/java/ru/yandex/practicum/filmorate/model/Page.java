@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Страница результатов при постраничной (keyset) выборке.
+ *
+ * @param <T> тип элементов страницы
+ */
+@Getter
+@AllArgsConstructor
+public class Page<T> {
+    private final List<T> items;        // Элементы текущей страницы
+    private final String nextCursor;    // Курсор следующей страницы или null, если страница последняя
+}
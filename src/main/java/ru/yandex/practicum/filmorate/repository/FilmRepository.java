@@ -2,8 +2,13 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для работы с хранилищем фильмов.
@@ -17,6 +22,23 @@ public interface FilmRepository {
      */
     List<Film> findAll();
 
+    /**
+     * Получение порции фильмов, упорядоченных по идентификатору (keyset-пагинация)
+     *
+     * @param afterId идентификатор, после которого начинается порция (0 - с начала)
+     * @param limit   максимальное количество фильмов
+     * @return фильмы с id больше afterId в порядке возрастания id
+     */
+    List<Film> findPage(int afterId, int limit);
+
+    /**
+     * Последовательный обход всех фильмов (с жанрами) без загрузки каталога в память целиком
+     *
+     * @param fetchSize количество строк, получаемых драйвером за одно обращение к базе
+     * @param action    обработчик, вызываемый для каждого фильма в порядке возрастания id
+     */
+    void forEachFilm(int fetchSize, Consumer<Film> action);
+
     /**
      * Поиск фильма по идентификатору
      *
@@ -25,6 +47,14 @@ public interface FilmRepository {
      */
     Optional<Film> findById(Integer id);
 
+    /**
+     * Поиск фильмов по списку идентификаторов одним запросом
+     *
+     * @param ids идентификаторы фильмов
+     * @return найденные фильмы в порядке переданных идентификаторов (отсутствующие пропускаются)
+     */
+    List<Film> findByIds(Collection<Integer> ids);
+
     /**
      * Сохранение нового фильма
      *
@@ -33,6 +63,14 @@ public interface FilmRepository {
      */
     Film save(Film film);
 
+    /**
+     * Пакетное сохранение новых фильмов с их жанрами.
+     * MPA и жанры должны быть проверены заранее; все фильмы сохраняются в одной транзакции.
+     *
+     * @param films фильмы для сохранения; после вызова им присваиваются идентификаторы
+     */
+    void saveAll(List<Film> films);
+
     /**
      * Обновление существующего фильма
      *
@@ -49,20 +87,47 @@ public interface FilmRepository {
     void delete(Integer id);
 
     /**
-     * Добавление лайка фильму от пользователя
+     * Добавление лайка фильму от пользователя.
+     * Проверка существования фильма, пользователя и лайка выполняется в том же запросе, что и вставка.
      *
      * @param filmId идентификатор фильма
      * @param userId идентификатор пользователя
+     * @param likedAt время постановки лайка
+     * @return true, если лайк добавлен; false, если фильм или пользователь не найдены либо лайк уже есть
      */
-    void addLike(Integer filmId, Integer userId);
+    boolean addLike(Integer filmId, Integer userId, Instant likedAt);
 
     /**
      * Удаление лайка у фильма
      *
      * @param filmId идентификатор фильма
      * @param userId идентификатор пользователя
+     * @return время постановки удалённого лайка или empty, если лайка не было
+     */
+    Optional<Instant> removeLike(Integer filmId, Integer userId);
+
+    /**
+     * Удаление всех лайков пользователя с уменьшением счётчиков лайков затронутых фильмов
+     *
+     * @param userId идентификатор пользователя
+     * @return время постановки каждого удалённого лайка по идентификатору фильма
      */
-    void removeLike(Integer filmId, Integer userId);
+    Map<Integer, Instant> removeLikesByUser(Integer userId);
+
+    /**
+     * Последовательный обход лайков, поставленных начиная с указанного момента
+     *
+     * @param since  начало периода
+     * @param action обработчик, получающий идентификатор фильма и время постановки лайка
+     */
+    void forEachLikeSince(Instant since, BiConsumer<Integer, Instant> action);
+
+    /**
+     * Последовательный обход всех лайков, упорядоченных по пользователю и фильму
+     *
+     * @param action обработчик, получающий идентификатор пользователя и идентификатор фильма
+     */
+    void forEachLike(BiConsumer<Integer, Integer> action);
 
     /**
      * Получение списка популярных фильмов
@@ -72,6 +137,32 @@ public interface FilmRepository {
      */
     List<Film> getPopularFilms(int count);
 
+    /**
+     * Получение списка популярных фильмов с фильтрами.
+     * Фильтры со значением null не применяются.
+     *
+     * @param count   количество возвращаемых фильмов
+     * @param genreId идентификатор жанра
+     * @param mpaId   идентификатор рейтинга MPA
+     * @param year    год выхода фильма
+     * @return список фильмов, отсортированных по количеству лайков
+     */
+    List<Film> getPopularFilms(int count, Integer genreId, Integer mpaId, Integer year);
+
+    /**
+     * Пересчёт денормализованных счётчиков лайков по таблице likes
+     *
+     * @return количество фильмов, у которых счётчик был исправлен
+     */
+    int recalculateLikesCounts();
+
+    /**
+     * Получение счётчиков лайков всех фильмов
+     *
+     * @return отображение идентификатора фильма в количество лайков
+     */
+    Map<Integer, Integer> getLikesCounts();
+
     boolean hasLike(Integer filmId, Integer userId);
 
     boolean existsById(Integer filmId);
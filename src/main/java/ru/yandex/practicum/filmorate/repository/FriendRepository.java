@@ -2,8 +2,10 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Интерфейс репозитория для работы с дружескими связями между пользователями.
@@ -53,14 +55,94 @@ public interface FriendRepository {
 
     void updateFriendshipStatus(Integer userId, Integer friendId, Integer newStatusId);
 
-    List<User> findCommonFriends(Integer userId, Integer otherId);
-
-
     List<User> getFriends(Integer userId);
 
     List<User> getFriendsByStatus(Integer userId, String statusName);
 
-    List<User> getCommonFriends(Integer userId, Integer otherId);
 
     List<User> getFriendsByUserId(Integer userId);
+
+    /**
+     * Получение порции друзей пользователя, упорядоченных по идентификатору друга (keyset-пагинация)
+     *
+     * @param userId  идентификатор пользователя
+     * @param afterId идентификатор друга, после которого начинается порция (0 - с начала)
+     * @param limit   максимальное количество друзей
+     * @return друзья с id больше afterId в порядке возрастания id
+     */
+    List<User> findFriendsPage(int userId, int afterId, int limit);
+
+    /**
+     * Получение порции входящих заявок в друзья: пользователей, отправивших заявку и ожидающих подтверждения
+     *
+     * @param userId  идентификатор получателя заявок
+     * @param afterId идентификатор отправителя, после которого начинается порция (0 - с начала)
+     * @param limit   максимальное количество заявок
+     * @return отправители заявок с id больше afterId в порядке возрастания id
+     */
+    List<User> findIncomingRequests(int userId, int afterId, int limit);
+
+    /**
+     * Отбор пользователей, чьи заявки в друзья ожидают подтверждения получателем
+     *
+     * @param userId       идентификатор получателя заявок
+     * @param requesterIds идентификаторы отправителей
+     * @return отправители из списка, у которых есть заявка со статусом PENDING
+     */
+    Set<Integer> findPendingRequesters(int userId, Collection<Integer> requesterIds);
+
+    /**
+     * Подтверждение нескольких входящих заявок двумя пакетными UPDATE (заявки и обратные связи).
+     * Затрагиваются только заявки, всё ещё ожидающие подтверждения.
+     *
+     * @param userId            идентификатор получателя заявок
+     * @param requesterIds      идентификаторы отправителей
+     * @param confirmedStatusId идентификатор статуса CONFIRMED
+     * @return отправители, чьи заявки подтверждены
+     */
+    Set<Integer> confirmRequests(int userId, Collection<Integer> requesterIds, int confirmedStatusId);
+
+    /**
+     * Отклонение нескольких входящих заявок: удаление ожидающих заявок и уменьшение счётчиков друзей
+     * отправителей, чьи заявки действительно удалены
+     *
+     * @param userId       идентификатор получателя заявок
+     * @param requesterIds идентификаторы отправителей
+     * @return отправители, чьи заявки отклонены
+     */
+    Set<Integer> declineRequests(int userId, Collection<Integer> requesterIds);
+
+    /**
+     * Пакетная запись связей дружбы одним batchUpdate. Существующая связь получает новый статус (MERGE по
+     * первичному ключу). Пакет записывается в одной транзакции и при ошибке откатывается целиком.
+     * Счётчики друзей не обновляются - после импорта их пересчитывает {@link #recalculateFriendsCounts()}
+     *
+     * @param userIds   идентификаторы пользователей
+     * @param friendIds идентификаторы друзей
+     * @param statusIds идентификаторы статусов
+     * @param count     количество связей (используются первые count элементов массивов)
+     */
+    void mergeAll(int[] userIds, int[] friendIds, int[] statusIds, int count);
+
+    /**
+     * Пересчёт денормализованных счётчиков друзей (users.friends_count) по таблице friendship
+     *
+     * @return количество пользователей, у которых счётчик был исправлен
+     */
+    int recalculateFriendsCounts();
+
+    /**
+     * Последовательный обход всех дружеских связей, упорядоченных по пользователю и другу
+     *
+     * @param action обработчик связи
+     */
+    void forEachFriendship(FriendshipHandler action);
+
+    /**
+     * Обработчик одной строки таблицы friendship.
+     */
+    @FunctionalInterface
+    interface FriendshipHandler {
+        void accept(int userId, int friendId, int statusId);
+    }
 }
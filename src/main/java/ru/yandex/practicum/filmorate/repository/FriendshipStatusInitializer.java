@@ -13,6 +13,7 @@ import java.util.List;
 public class FriendshipStatusInitializer {
     private final FriendshipStatusRepository statusRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceData;
 
     @PostConstruct
     public void init() {
@@ -38,6 +39,7 @@ public class FriendshipStatusInitializer {
                         ps.setString(2, status.getName());
                     }
             );
+            referenceData.reload();
         }
     }
 }
\ No newline at end of file
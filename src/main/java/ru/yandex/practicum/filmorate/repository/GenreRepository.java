@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -32,6 +34,15 @@ public interface GenreRepository {
      */
     List<Genre> getFilmGenres(Integer filmId);
 
+    /**
+     * Получает жанры сразу для нескольких фильмов одним запросом
+     *
+     * @param filmIds идентификаторы фильмов
+     * @return жанры, сгруппированные по идентификатору фильма и отсортированные по ID жанра;
+     * фильмы без жанров в результат не попадают
+     */
+    Map<Integer, List<Genre>> getGenresByFilmIds(Collection<Integer> filmIds);
+
     /**
      * Добавляет жанр к фильму
      *
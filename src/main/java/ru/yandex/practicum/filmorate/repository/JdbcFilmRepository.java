@@ -3,8 +3,11 @@ package ru.yandex.practicum.filmorate.repository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -12,9 +15,16 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 @Primary
@@ -22,7 +32,7 @@ import java.util.*;
 public class JdbcFilmRepository implements FilmRepository {
     private final JdbcTemplate jdbcTemplate;
     private final GenreRepository genreRepository;
-    private final MpaRepository mpaRepository;
+    private final ReferenceDataCache referenceData;
 
     @Override
     public List<Film> findAll() {
@@ -30,7 +40,53 @@ public class JdbcFilmRepository implements FilmRepository {
                 "f.mpa_rating_id, m.code AS mpa_code, m.description AS mpa_description " +
                 "FROM films f JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
                 "ORDER BY f.id ASC";
-        return jdbcTemplate.query(sql, this::mapRowToFilm);
+        return loadGenres(jdbcTemplate.query(sql, this::mapRowToFilm));
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                "f.mpa_rating_id, m.code, m.description AS mpa_description " +
+                "FROM films f JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
+                "WHERE f.id > ? " +
+                "ORDER BY f.id ASC " +
+                "LIMIT ?";
+        return loadGenres(jdbcTemplate.query(sql, this::mapRowToFilm, afterId, limit));
+    }
+
+    @Override
+    public void forEachFilm(int fetchSize, Consumer<Film> action) {
+        // Жанры присоединяются в том же запросе; строки одного фильма идут подряд
+        // благодаря сортировке по f.id и сворачиваются в один объект
+        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                "f.mpa_rating_id, m.code, g.id AS genre_id, g.name AS genre_name " +
+                "FROM films f JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
+                "LEFT JOIN film_genre fg ON fg.film_id = f.id " +
+                "LEFT JOIN genre g ON g.id = fg.genre_id " +
+                "ORDER BY f.id ASC, g.id ASC";
+
+        Film[] current = new Film[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            int filmId = rs.getInt("id");
+            if (current[0] == null || current[0].getId() != filmId) {
+                if (current[0] != null) {
+                    action.accept(current[0]);
+                }
+                current[0] = mapRowToFilm(rs, 0);
+            }
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                current[0].getGenres().add(new Genre(genreId, rs.getString("genre_name")));
+            }
+        });
+        if (current[0] != null) {
+            action.accept(current[0]);
+        }
     }
 
     @Override
@@ -40,12 +96,38 @@ public class JdbcFilmRepository implements FilmRepository {
                 "FROM films f JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
                 "WHERE f.id = ?";
         try {
-            return Optional.ofNullable(jdbcTemplate.queryForObject(sql, this::mapRowToFilm, id));
+            Film film = jdbcTemplate.queryForObject(sql, this::mapRowToFilm, id);
+            return Optional.ofNullable(film).map(f -> loadGenres(List.of(f)).get(0));
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    @Override
+    public List<Film> findByIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                "f.mpa_rating_id, m.code, m.description AS mpa_description " +
+                "FROM films f JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
+                "WHERE f.id IN (" + placeholders + ")";
+
+        Map<Integer, Film> filmsById = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            Film film = mapRowToFilm(rs, 0);
+            filmsById.put(film.getId(), film);
+        }, ids.toArray());
+
+        List<Film> films = ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+        return loadGenres(films);
+    }
+
     @Override
     @Transactional
     public Film save(Film film) {
@@ -73,7 +155,7 @@ public class JdbcFilmRepository implements FilmRepository {
                 if (genre.getId() == null) {
                     throw new IllegalArgumentException("Genre ID must be specified");
                 }
-                if (genreRepository.findById(genre.getId()).isEmpty()) {
+                if (referenceData.findGenre(genre.getId()).isEmpty()) {
                     throw new IllegalArgumentException("Genre with id " + genre.getId() + " not found");
                 }
                 genreRepository.addGenreToFilm(filmId, genre.getId());
@@ -86,13 +168,72 @@ public class JdbcFilmRepository implements FilmRepository {
 
     @Override
     @Transactional
-    public Film update(Film film) {
-        findById(film.getId()).orElseThrow(() ->
-                new NotFoundException("Film with id " + film.getId() + " not found"));
+    public void saveAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
 
+        String filmSql = "INSERT INTO films (name, description, release_date, duration, mpa_rating_id) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(filmSql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, java.sql.Date.valueOf(film.getReleaseDate()));
+                        ps.setInt(4, film.getDuration());
+                        ps.setInt(5, film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> filmGenres = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            if (film.getGenres() != null) {
+                film.getGenres().stream()
+                        .map(Genre::getId)
+                        .distinct()
+                        .forEach(genreId -> filmGenres.add(new Object[]{film.getId(), genreId}));
+            }
+        }
+
+        if (!filmGenres.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", filmGenres);
+        }
+    }
+
+    @Override
+    @Transactional
+    public Film update(Film film) {
         if (film.getMpa() == null) {
             throw new IllegalArgumentException("MPA rating must be specified");
         }
+        Mpa mpa = referenceData.findMpa(film.getMpa().getId())
+                .orElseThrow(() -> new NotFoundException("MPA rating with id " + film.getMpa().getId() + " not found"));
+
+        // Жанры проверяются и берутся из кэша справочников до записи в базу
+        SortedMap<Integer, Genre> requestedGenres = new TreeMap<>();
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (genre.getId() == null) {
+                    throw new IllegalArgumentException("Genre ID must be specified");
+                }
+                requestedGenres.put(genre.getId(), referenceData.findGenre(genre.getId())
+                        .orElseThrow(() -> new IllegalArgumentException("Genre with id " + genre.getId() + " not found")));
+            }
+        }
 
         String updateSql = "UPDATE films SET name = ?, description = ?, release_date = ?, " +
                 "duration = ?, mpa_rating_id = ? WHERE id = ?";
@@ -101,26 +242,43 @@ public class JdbcFilmRepository implements FilmRepository {
                 film.getDescription(),
                 film.getReleaseDate(),
                 film.getDuration(),
-                film.getMpa().getId(),
+                mpa.getId(),
                 film.getId());
 
         if (rowsUpdated == 0) {
-            throw new IllegalStateException("No film was updated - film with id " + film.getId() + " not found");
+            throw new NotFoundException("Film with id " + film.getId() + " not found");
         }
 
-        jdbcTemplate.update("DELETE FROM film_genre WHERE film_id = ?", film.getId());
+        // Применяем только разницу между текущими и запрошенными жанрами
+        Set<Integer> currentGenreIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genre WHERE film_id = ?", Integer.class, film.getId()));
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            film.getGenres().forEach(genre -> {
-                if (genre.getId() == null) {
-                    throw new IllegalArgumentException("Genre ID must be specified");
-                }
-                genreRepository.addGenreToFilm(film.getId(), genre.getId());
-            });
+        List<Object[]> toDelete = currentGenreIds.stream()
+                .filter(genreId -> !requestedGenres.containsKey(genreId))
+                .map(genreId -> new Object[]{film.getId(), genreId})
+                .toList();
+        List<Object[]> toInsert = requestedGenres.keySet().stream()
+                .filter(genreId -> !currentGenreIds.contains(genreId))
+                .map(genreId -> new Object[]{film.getId(), genreId})
+                .toList();
+
+        if (!toDelete.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_genre WHERE film_id = ? AND genre_id = ?", toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", toInsert);
         }
 
-        return findById(film.getId())
-                .orElseThrow(() -> new IllegalStateException("Failed to retrieve updated film"));
+        // Всё, что вернул бы повторный findById, уже известно: поля из запроса, MPA и жанры из справочников
+        Film updated = new Film();
+        updated.setId(film.getId());
+        updated.setName(film.getName());
+        updated.setDescription(film.getDescription());
+        updated.setReleaseDate(film.getReleaseDate());
+        updated.setDuration(film.getDuration());
+        updated.setMpa(Mpa.builder().id(mpa.getId()).code(mpa.getCode()).build());
+        updated.setGenres(new LinkedHashSet<>(requestedGenres.values()));
+        return updated;
     }
 
     @Override
@@ -129,30 +287,131 @@ public class JdbcFilmRepository implements FilmRepository {
     }
 
     @Override
-    public void addLike(Integer filmId, Integer userId) {
-        String sql = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+    @Transactional
+    public boolean addLike(Integer filmId, Integer userId, Instant likedAt) {
+        // Вставка и все проверки за одно обращение к базе
+        String sql = "INSERT INTO likes (film_id, user_id, created_at) " +
+                "SELECT f.id, u.id, ? FROM films f JOIN users u ON u.id = ? " +
+                "WHERE f.id = ? " +
+                "AND NOT EXISTS(SELECT 1 FROM likes l WHERE l.film_id = f.id AND l.user_id = u.id)";
+        if (jdbcTemplate.update(sql, Timestamp.from(likedAt), userId, filmId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+        return true;
     }
 
     @Override
-    public void removeLike(Integer filmId, Integer userId) {
-        String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+    @Transactional
+    public Optional<Instant> removeLike(Integer filmId, Integer userId) {
+        // Удаление и получение времени удалённого лайка одним запросом (data change delta table H2)
+        String sql = "SELECT created_at FROM OLD TABLE (DELETE FROM likes WHERE film_id = ? AND user_id = ?)";
+        List<Instant> removed = jdbcTemplate.query(sql,
+                (rs, rowNum) -> rs.getTimestamp("created_at").toInstant(), filmId, userId);
+        if (removed.isEmpty()) {
+            return Optional.empty();
+        }
+        jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmId);
+        return Optional.of(removed.get(0));
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, Instant> removeLikesByUser(Integer userId) {
+        Map<Integer, Instant> removed = new HashMap<>();
+        String sql = "SELECT film_id, created_at FROM OLD TABLE (DELETE FROM likes WHERE user_id = ?)";
+        jdbcTemplate.query(sql, rs -> {
+            removed.put(rs.getInt("film_id"), rs.getTimestamp("created_at").toInstant());
+        }, userId);
+        if (!removed.isEmpty()) {
+            // Счётчики уменьшаются только у фильмов, лайки которых действительно удалены
+            List<Object[]> filmIds = removed.keySet().stream()
+                    .map(filmId -> new Object[]{filmId})
+                    .toList();
+            jdbcTemplate.batchUpdate("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmIds);
+        }
+        return removed;
+    }
+
+    @Override
+    public void forEachLikeSince(Instant since, BiConsumer<Integer, Instant> action) {
+        String sql = "SELECT film_id, created_at FROM likes WHERE created_at >= ?";
+        jdbcTemplate.query(sql, rs -> {
+            action.accept(rs.getInt("film_id"), rs.getTimestamp("created_at").toInstant());
+        }, Timestamp.from(since));
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        String sql = "SELECT user_id, film_id FROM likes ORDER BY user_id, film_id";
+        jdbcTemplate.query(sql, rs -> {
+            action.accept(rs.getInt("user_id"), rs.getInt("film_id"));
+        });
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
+        // Счётчик лайков поддерживается в films.likes_count, поэтому top-K читается по индексу
+        // idx_films_likes_count без агрегации по всей таблице likes
         String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
-                "f.mpa_rating_id, m.code AS mpa_code, m.description AS mpa_description, " +
-                "COUNT(l.user_id) AS likes_count " +
+                "f.mpa_rating_id, m.code AS mpa_code, m.description AS mpa_description " +
                 "FROM films f " +
-                "LEFT JOIN likes l ON f.id = l.film_id " +
                 "JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
-                "GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.mpa_rating_id, m.code, m.description " +
-                "ORDER BY likes_count DESC " +
+                "ORDER BY f.likes_count DESC, f.id ASC " +
                 "LIMIT ?";
 
-        return jdbcTemplate.query(sql, this::mapRowToFilm, count);
+        return loadGenres(jdbcTemplate.query(sql, this::mapRowToFilm, count));
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer mpaId, Integer year) {
+        // Фильтры по MPA и году используют idx_films_mpa_release (год - диапазоном дат),
+        // фильтр по жанру - idx_film_genre_genre; сортировка по поддерживаемому счётчику likes_count
+        StringBuilder sql = new StringBuilder("SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+                "f.mpa_rating_id, m.code, m.description AS mpa_description " +
+                "FROM films f " +
+                "JOIN mpa_rating m ON f.mpa_rating_id = m.id " +
+                "WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        if (mpaId != null) {
+            sql.append(" AND f.mpa_rating_id = ?");
+            params.add(mpaId);
+        }
+        if (year != null) {
+            sql.append(" AND f.release_date >= ? AND f.release_date < ?");
+            params.add(LocalDate.of(year, 1, 1));
+            params.add(LocalDate.of(year + 1, 1, 1));
+        }
+        if (genreId != null) {
+            sql.append(" AND f.id IN (SELECT fg.film_id FROM film_genre fg WHERE fg.genre_id = ?)");
+            params.add(genreId);
+        }
+        sql.append(" ORDER BY f.likes_count DESC, f.id ASC LIMIT ?");
+        params.add(count);
+
+        return loadGenres(jdbcTemplate.query(sql.toString(), this::mapRowToFilm, params.toArray()));
+    }
+
+    @Override
+    @Transactional
+    public int recalculateLikesCounts() {
+        String sql = "UPDATE films f SET likes_count = (" +
+                "   SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id" +
+                ") WHERE likes_count <> (" +
+                "   SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id" +
+                ")";
+        return jdbcTemplate.update(sql);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT id, likes_count FROM films",
+                rs -> {
+                    counts.put(rs.getInt("id"), rs.getInt("likes_count"));
+                });
+        return counts;
     }
 
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
@@ -168,14 +427,29 @@ public class JdbcFilmRepository implements FilmRepository {
         mpa.setId(rs.getInt("mpa_rating_id"));
         mpa.setCode(rs.getString("code")); // Используем code вместо name
         film.setMpa(mpa);
-
-        // Загрузка жанров с сохранением порядка
-        List<Genre> genres = genreRepository.getFilmGenres(film.getId());
-        film.setGenres(new LinkedHashSet<>(genres));
+        film.setGenres(new LinkedHashSet<>());
 
         return film;
     }
 
+    /**
+     * Загружает жанры для всех фильмов выборки одним запросом вместо запроса на каждый фильм.
+     *
+     * @param films фильмы, полученные через {@link #mapRowToFilm}
+     * @return тот же список с заполненными жанрами (порядок жанров - по ID)
+     */
+    private List<Film> loadGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        List<Integer> filmIds = films.stream().map(Film::getId).toList();
+        Map<Integer, List<Genre>> genresByFilm = genreRepository.getGenresByFilmIds(filmIds);
+        films.forEach(film -> film.setGenres(
+                new LinkedHashSet<>(genresByFilm.getOrDefault(film.getId(), List.of()))));
+        return films;
+    }
+
     @Override
     public boolean hasLike(Integer filmId, Integer userId) {
         String sql = "SELECT EXISTS(SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
@@ -3,35 +3,56 @@ package ru.yandex.practicum.filmorate.repository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class JdbcFriendRepository implements FriendRepository {
+    // Прямая связь ищется по первичному ключу, обратная - по idx_friendship_friend_status.
+    // OR в одном WHERE помешал бы использовать индексы и привёл бы к полному сканированию таблицы
+    static final String FRIENDSHIP_EXISTS_SQL = "SELECT " +
+            "EXISTS(SELECT 1 FROM friendship WHERE user_id = ? AND friend_id = ?) OR " +
+            "EXISTS(SELECT 1 FROM friendship WHERE friend_id = ? AND user_id = ?)";
+
+    static final String PENDING_REQUEST_SQL = "SELECT EXISTS(" +
+            "SELECT 1 FROM friendship WHERE friend_id = ? AND status_id = ? AND user_id = ?)";
+
+    // Диапазон по idx_friendship_friend_status (friend_id, status_id, user_id) уже упорядочен по user_id
+    static final String INCOMING_REQUESTS_SQL = "SELECT u.* FROM friendship f " +
+            "JOIN users u ON u.id = f.user_id " +
+            "WHERE f.friend_id = ? AND f.status_id = ? AND f.user_id > ? " +
+            "ORDER BY f.user_id " +
+            "LIMIT ?";
+
     private final JdbcTemplate jdbcTemplate;
-    private final FriendshipStatusRepository statusRepository;
+    private final ReferenceDataCache referenceData;
     private final UserRepository userRepository;
 
     @Transactional
     @Override
     public void addFriend(Integer userId, Integer friendId, Integer statusId) {
         // Проверка существования пользователей
-        if (userRepository.findById(userId).isEmpty()) {
-            throw new IllegalArgumentException("User not found with id: " + userId);
-        }
-        if (userRepository.findById(friendId).isEmpty()) {
-            throw new IllegalArgumentException("User not found with id: " + friendId);
+        Set<Integer> missing = userRepository.findMissingIds(List.of(userId, friendId));
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("User not found with id: " + missing.iterator().next());
         }
 
         // Проверка на добавление самого себя
@@ -44,14 +65,10 @@ public class JdbcFriendRepository implements FriendRepository {
             throw new IllegalArgumentException("Friendship already exists");
         }
 
-        // Получаем ID статуса PENDING
-        Integer pendingStatusId = statusRepository.findByName("PENDING")
-                .orElseThrow(() -> new IllegalStateException("PENDING status not found"))
-                .getId();
-
         // Создаем запись о дружбе
         String sql = "INSERT INTO friendship (user_id, friend_id, status_id) VALUES (?, ?, ?)";
         jdbcTemplate.update(sql, userId, friendId, statusId);
+        changeFriendsCount(userId, 1);
     }
 
     @Transactional
@@ -61,19 +78,18 @@ public class JdbcFriendRepository implements FriendRepository {
         String sql = "DELETE FROM friendship WHERE user_id = ? AND friend_id = ?";
         int deleted = jdbcTemplate.update(sql, userId, friendId);
         log.debug("Deleted {} friendship record from {} to {}", deleted, userId, friendId);
+        if (deleted > 0) {
+            changeFriendsCount(userId, -1);
+        }
     }
 
     @Override
     public boolean friendshipExists(int userId, int friendId) {
-        String sql = "SELECT COUNT(*) > 0 FROM friendship " +
-                "WHERE (user_id = ? AND friend_id = ?) OR " +
-                "      (user_id = ? AND friend_id = ?)";
-
         return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
-                sql,
+                FRIENDSHIP_EXISTS_SQL,
                 Boolean.class,
                 userId, friendId,
-                friendId, userId
+                userId, friendId
         ));
     }
 
@@ -89,9 +105,7 @@ public class JdbcFriendRepository implements FriendRepository {
 
     @Override
     public List<User> findFriendsByStatus(Integer userId, String statusName) {
-        Integer statusId = statusRepository.findByName(statusName)
-                .orElseThrow(() -> new IllegalStateException(statusName + " status not found"))
-                .getId();
+        Integer statusId = referenceData.getStatusByName(statusName).getId();
 
         String sql = "SELECT u.* FROM users u " +
                 "JOIN friendship f ON u.id = f.friend_id " +
@@ -103,9 +117,7 @@ public class JdbcFriendRepository implements FriendRepository {
     @Transactional
     public void confirmFriendship(Integer userId, Integer friendId) {
         // Получаем ID статусов
-        Integer confirmedStatusId = statusRepository.findByName("CONFIRMED")
-                .orElseThrow(() -> new IllegalStateException("CONFIRMED status not found"))
-                .getId();
+        Integer confirmedStatusId = referenceData.getStatusByName("CONFIRMED").getId();
 
         // Обновляем существующую заявку
         String updateSql = "UPDATE friendship SET status_id = ? WHERE user_id = ? AND friend_id = ?";
@@ -114,15 +126,14 @@ public class JdbcFriendRepository implements FriendRepository {
         // Создаем обратную запись о дружбе
         String insertSql = "INSERT INTO friendship (user_id, friend_id, status_id) VALUES (?, ?, ?)";
         jdbcTemplate.update(insertSql, userId, friendId, confirmedStatusId);
+        changeFriendsCount(userId, 1);
     }
 
     @Override
     public boolean hasPendingRequest(Integer userId, Integer friendId) {
-        String sql = "SELECT COUNT(*) > 0 FROM friendship f " +
-                "JOIN friendship_status fs ON f.status_id = fs.id " +
-                "WHERE f.user_id = ? AND f.friend_id = ? AND fs.name = 'PENDING'";
+        Integer pendingStatusId = referenceData.getStatusByName("PENDING").getId();
         return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
-                sql, Boolean.class, userId, friendId));
+                PENDING_REQUEST_SQL, Boolean.class, friendId, pendingStatusId, userId));
     }
 
     @Override
@@ -132,18 +143,6 @@ public class JdbcFriendRepository implements FriendRepository {
         jdbcTemplate.update(sql, newStatusId, userId, friendId);
     }
 
-    @Override
-    public List<User> findCommonFriends(Integer userId, Integer otherId) {
-        String sql = "SELECT u.* FROM users u " +
-                "JOIN friendship f1 ON u.id = f1.friend_id AND f1.user_id = ? " +
-                "JOIN friendship f2 ON u.id = f2.friend_id AND f2.user_id = ? " +
-                // Убрали проверку статуса, чтобы учитывать все связи
-                "WHERE f1.status_id IS NOT NULL AND f2.status_id IS NOT NULL";
-
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
-    }
-
-
     @Override
     public List<User> getFriends(Integer userId) {
         String sql = "SELECT u.* FROM users u " +
@@ -166,24 +165,6 @@ public class JdbcFriendRepository implements FriendRepository {
     }
 
 
-    @Override
-    public List<User> getCommonFriends(Integer userId, Integer otherId) {
-        String sql = "SELECT u.* FROM users u " +
-                "WHERE u.id IN (" +
-                "   SELECT f1.friend_id FROM friendship f1 " +
-                "   WHERE f1.user_id = ? AND f1.status_id = (" +
-                "       SELECT id FROM friendship_status WHERE name = 'CONFIRMED'" +
-                "   )" +
-                ") AND u.id IN (" +
-                "   SELECT f2.friend_id FROM friendship f2 " +
-                "   WHERE f2.user_id = ? AND f2.status_id = (" +
-                "       SELECT id FROM friendship_status WHERE name = 'CONFIRMED'" +
-                "   )" +
-                ")";
-
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
-    }
-
     @Override
     public List<User> getFriendsByUserId(Integer userId) {
         String sql = "SELECT u.*, fs.name as status_name FROM users u " +
@@ -199,6 +180,134 @@ public class JdbcFriendRepository implements FriendRepository {
         }, userId);
     }
 
+    @Override
+    public List<User> findFriendsPage(int userId, int afterId, int limit) {
+        // Диапазон по первичному ключу (user_id, friend_id): читаются только строки страницы
+        String sql = "SELECT u.*, fs.name as status_name FROM friendship f " +
+                "JOIN users u ON u.id = f.friend_id " +
+                "JOIN friendship_status fs ON f.status_id = fs.id " +
+                "WHERE f.user_id = ? AND f.friend_id > ? " +
+                "ORDER BY f.friend_id " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapRowToUser, userId, afterId, limit);
+    }
+
+    @Override
+    public List<User> findIncomingRequests(int userId, int afterId, int limit) {
+        Integer pendingStatusId = referenceData.getStatusByName("PENDING").getId();
+        return jdbcTemplate.query(INCOMING_REQUESTS_SQL, this::mapRowToUser, userId, pendingStatusId, afterId, limit);
+    }
+
+    @Override
+    public Set<Integer> findPendingRequesters(int userId, Collection<Integer> requesterIds) {
+        Set<Integer> pending = new HashSet<>();
+        if (requesterIds.isEmpty()) {
+            return pending;
+        }
+        Integer pendingStatusId = referenceData.getStatusByName("PENDING").getId();
+        String sql = "SELECT user_id FROM friendship " +
+                "WHERE friend_id = ? AND status_id = ? AND user_id IN (" + placeholders(requesterIds.size()) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            pending.add(rs.getInt("user_id"));
+        }, params(List.of(userId, pendingStatusId), requesterIds));
+        return pending;
+    }
+
+    @Override
+    @Transactional
+    public Set<Integer> confirmRequests(int userId, Collection<Integer> requesterIds, int confirmedStatusId) {
+        Set<Integer> confirmed = new HashSet<>();
+        if (requesterIds.isEmpty()) {
+            return confirmed;
+        }
+        Integer pendingStatusId = referenceData.getStatusByName("PENDING").getId();
+        // Обновление и получение действительно подтверждённых заявок одним запросом (data change delta table H2)
+        String sql = "SELECT user_id FROM FINAL TABLE (UPDATE friendship SET status_id = ? " +
+                "WHERE friend_id = ? AND status_id = ? AND user_id IN (" + placeholders(requesterIds.size()) + "))";
+        jdbcTemplate.query(sql, rs -> {
+            confirmed.add(rs.getInt("user_id"));
+        }, params(List.of(confirmedStatusId, userId, pendingStatusId), requesterIds));
+        if (!confirmed.isEmpty()) {
+            jdbcTemplate.update("UPDATE friendship SET status_id = ? WHERE user_id = ? AND status_id = ? " +
+                            "AND friend_id IN (" + placeholders(confirmed.size()) + ")",
+                    params(List.of(confirmedStatusId, userId, pendingStatusId), confirmed));
+        }
+        return confirmed;
+    }
+
+    @Override
+    @Transactional
+    public Set<Integer> declineRequests(int userId, Collection<Integer> requesterIds) {
+        Set<Integer> declined = new HashSet<>();
+        if (requesterIds.isEmpty()) {
+            return declined;
+        }
+        Integer pendingStatusId = referenceData.getStatusByName("PENDING").getId();
+        // Счётчики уменьшаются только у отправителей, чьи заявки действительно удалены
+        String sql = "SELECT user_id FROM OLD TABLE (DELETE FROM friendship " +
+                "WHERE friend_id = ? AND status_id = ? AND user_id IN (" + placeholders(requesterIds.size()) + "))";
+        jdbcTemplate.query(sql, rs -> {
+            declined.add(rs.getInt("user_id"));
+        }, params(List.of(userId, pendingStatusId), requesterIds));
+        if (!declined.isEmpty()) {
+            jdbcTemplate.update("UPDATE users SET friends_count = friends_count - 1 " +
+                    "WHERE id IN (" + placeholders(declined.size()) + ")", declined.toArray());
+        }
+        return declined;
+    }
+
+    @Override
+    @Transactional
+    public void mergeAll(int[] userIds, int[] friendIds, int[] statusIds, int count) {
+        String sql = "MERGE INTO friendship (user_id, friend_id, status_id) KEY (user_id, friend_id) VALUES (?, ?, ?)";
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, userIds[i]);
+                ps.setInt(2, friendIds[i]);
+                ps.setInt(3, statusIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] params(List<Integer> leading, Collection<Integer> ids) {
+        List<Object> params = new ArrayList<>(leading);
+        params.addAll(ids);
+        return params.toArray();
+    }
+
+    @Override
+    @Transactional
+    public int recalculateFriendsCounts() {
+        String sql = "UPDATE users u SET friends_count = (" +
+                "   SELECT COUNT(*) FROM friendship f WHERE f.user_id = u.id" +
+                ") WHERE friends_count <> (" +
+                "   SELECT COUNT(*) FROM friendship f WHERE f.user_id = u.id" +
+                ")";
+        return jdbcTemplate.update(sql);
+    }
+
+    private void changeFriendsCount(int userId, int delta) {
+        jdbcTemplate.update("UPDATE users SET friends_count = friends_count + ? WHERE id = ?", delta, userId);
+    }
+
+    @Override
+    public void forEachFriendship(FriendshipHandler action) {
+        String sql = "SELECT user_id, friend_id, status_id FROM friendship ORDER BY user_id, friend_id";
+        jdbcTemplate.query(sql, rs -> {
+            action.accept(rs.getInt("user_id"), rs.getInt("friend_id"), rs.getInt("status_id"));
+        });
+    }
+
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         User user = User.builder()
                 .id(rs.getInt("id"))
@@ -213,7 +322,7 @@ public class JdbcFriendRepository implements FriendRepository {
         try {
             String statusName = rs.getString("status_name");
             if (statusName != null) {
-                FriendshipStatus status = statusRepository.findByName(statusName)
+                FriendshipStatus status = referenceData.findStatusByName(statusName)
                         .orElseThrow(() -> new IllegalStateException("Status not found: " + statusName));
                 user.getFriends().put(user.getId(), status);
             }
@@ -8,7 +8,12 @@ import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -41,6 +46,26 @@ public class JdbcGenreRepository implements GenreRepository {
         return jdbcTemplate.query(sql, this::mapRowToGenre, filmId);
     }
 
+    @Override
+    public Map<Integer, List<Genre>> getGenresByFilmIds(Collection<Integer> filmIds) {
+        Map<Integer, List<Genre>> result = new HashMap<>();
+        if (filmIds == null || filmIds.isEmpty()) {
+            return result;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(filmIds.size(), "?"));
+        String sql = "SELECT fg.film_id, g.id, g.name FROM film_genre fg " +
+                "JOIN genre g ON g.id = fg.genre_id " +
+                "WHERE fg.film_id IN (" + placeholders + ") " +
+                "ORDER BY fg.film_id, g.id ASC";
+
+        jdbcTemplate.query(sql, rs -> {
+            result.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>())
+                    .add(mapRowToGenre(rs, 0));
+        }, filmIds.toArray());
+        return result;
+    }
+
     @Override
     public void addGenreToFilm(Integer filmId, Integer genreId) {
         // Проверяем существование жанра
@@ -4,9 +4,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -14,6 +16,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 /**
  * JDBC-реализация репозитория для работы с пользователями.
@@ -23,13 +27,25 @@ import java.util.*;
 @RequiredArgsConstructor
 public class JdbcUserRepository implements UserRepository {
     private final JdbcTemplate jdbcTemplate;
-    private final FriendshipStatusRepository statusRepository;
+    private final ReferenceDataCache referenceData;
 
     @Override
     public List<User> findAll() {
+        // Два запроса независимо от количества пользователей: сами пользователи и вся таблица дружбы
         String sql = "SELECT * FROM users";
         List<User> users = jdbcTemplate.query(sql, this::mapRowToUser);
-        users.forEach(this::loadFriends);
+        Map<Integer, User> usersById = prepareFriends(users);
+        if (!usersById.isEmpty()) {
+            jdbcTemplate.query("SELECT user_id, friend_id, status_id FROM friendship", friendRows(usersById));
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, afterId, limit);
+        loadFriends(users);
         return users;
     }
 
@@ -38,13 +54,40 @@ public class JdbcUserRepository implements UserRepository {
         String sql = "SELECT * FROM users WHERE id = ?";
         try {
             User user = jdbcTemplate.queryForObject(sql, this::mapRowToUser, id);
-            loadFriends(user);
+            loadFriends(List.of(user));
             return Optional.of(user);
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        List<User> users = findRowsByIds(ids);
+        loadFriends(users);
+        return users;
+    }
+
+    @Override
+    public List<User> findRowsByIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ")";
+        Map<Integer, User> usersById = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            User user = mapRowToUser(rs, 0);
+            usersById.put(user.getId(), user);
+        }, ids.toArray());
+
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
     @Override
     public User save(User user) {
         String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
@@ -81,8 +124,11 @@ public class JdbcUserRepository implements UserRepository {
     }
 
     @Override
+    @Transactional
     public void delete(Integer id) {
-        // Сначала удаляем связи дружбы
+        // Сначала удаляем связи дружбы, уменьшив счётчики тех, у кого удаляемый пользователь был в друзьях
+        jdbcTemplate.update("UPDATE users SET friends_count = friends_count - 1 " +
+                "WHERE id IN (SELECT user_id FROM friendship WHERE friend_id = ?)", id);
         jdbcTemplate.update("DELETE FROM friendship WHERE user_id = ? OR friend_id = ?", id, id);
         // Затем удаляем пользователя
         jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
@@ -98,31 +144,46 @@ public class JdbcUserRepository implements UserRepository {
                 .build();
     }
 
-    private void loadFriends(User user) {
-        if (user == null || user.getId() == null) return;
+    /**
+     * Загружает друзей для всех пользователей списка одним запросом.
+     *
+     * @param users пользователи
+     */
+    private void loadFriends(List<User> users) {
+        Map<Integer, User> usersById = prepareFriends(users);
+        if (usersById.isEmpty()) {
+            return;
+        }
 
-        String sql = "SELECT f.friend_id, fs.name as status_name " +
-                "FROM friendship f " +
-                "JOIN friendship_status fs ON f.status_id = fs.id " +
-                "WHERE f.user_id = ?";
+        String placeholders = String.join(", ", Collections.nCopies(usersById.size(), "?"));
+        String sql = "SELECT f.user_id, f.friend_id, f.status_id FROM friendship f " +
+                "WHERE f.user_id IN (" + placeholders + ")";
+        jdbcTemplate.query(sql, friendRows(usersById), usersById.keySet().toArray());
+    }
 
-        if (user.getFriends() == null) {
+    private static Map<Integer, User> prepareFriends(List<User> users) {
+        Map<Integer, User> usersById = new HashMap<>();
+        users.forEach(user -> {
             user.setFriends(new HashMap<>());
-        } else {
-            user.getFriends().clear();
-        }
-
-        jdbcTemplate.query(sql, (rs, rowNum) -> {
-            int friendId = rs.getInt("friend_id");
-            String statusName = rs.getString("status_name");
+            usersById.put(user.getId(), user);
+        });
+        return usersById;
+    }
 
-            if (!rs.wasNull() && statusName != null) {
-                FriendshipStatus status = statusRepository.findByName(statusName)
-                        .orElseThrow(() -> new IllegalStateException("Status not found: " + statusName));
-                user.addFriend(friendId, status);
+    /**
+     * Раскладывает строки friendship по пользователям; статусы берутся из кэша справочников.
+     */
+    private RowCallbackHandler friendRows(Map<Integer, User> usersById) {
+        return rs -> {
+            User user = usersById.get(rs.getInt("user_id"));
+            if (user == null) {
+                return;
             }
-            return null;
-        }, user.getId());
+            int statusId = rs.getInt("status_id");
+            FriendshipStatus status = referenceData.findStatus(statusId)
+                    .orElseThrow(() -> new IllegalStateException("Status not found: " + statusId));
+            user.addFriend(rs.getInt("friend_id"), status);
+        };
     }
 
     @Override
@@ -136,4 +197,32 @@ public class JdbcUserRepository implements UserRepository {
         String sql = "SELECT EXISTS(SELECT 1 FROM users WHERE id = ?)";
         return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
     }
+
+    @Override
+    public void forEachId(IntConsumer action) {
+        jdbcTemplate.query("SELECT id FROM users ORDER BY id", rs -> {
+            action.accept(rs.getInt("id"));
+        });
+    }
+
+    @Override
+    public Optional<Integer> getFriendsCount(Integer id) {
+        String sql = "SELECT friends_count FROM users WHERE id = ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getInt("friends_count"), id).stream().findFirst();
+    }
+
+    @Override
+    public Set<Integer> findMissingIds(Collection<Integer> ids) {
+        Set<Integer> missing = new LinkedHashSet<>(ids);
+        if (missing.isEmpty()) {
+            return missing;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(missing.size(), "?"));
+        String sql = "SELECT id FROM users WHERE id IN (" + placeholders + ")";
+        jdbcTemplate.query(sql, rs -> {
+            missing.remove(rs.getInt("id"));
+        }, missing.toArray());
+        return missing;
+    }
 }
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш справочников: жанры, рейтинги MPA и статусы дружбы.
+ * Справочники маленькие и почти не меняются, поэтому загружаются целиком при старте
+ * в неизменяемый снимок с массивами, индексированными по ID, и перечитываются по запросу через {@link #reload()}.
+ * Модели справочников изменяемы и попадают в ответы клиентам, поэтому наружу отдаются их копии:
+ * изменение возвращённого объекта не затрагивает снимок и другие запросы.
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+    private final GenreRepository genreRepository;
+    private final MpaRepository mpaRepository;
+    private final FriendshipStatusRepository statusRepository;
+
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(GenreRepository genreRepository,
+                              MpaRepository mpaRepository,
+                              FriendshipStatusRepository statusRepository) {
+        this.genreRepository = genreRepository;
+        this.mpaRepository = mpaRepository;
+        this.statusRepository = statusRepository;
+    }
+
+    /**
+     * Перечитывает все справочники из базы и атомарно заменяет снимок.
+     */
+    @PostConstruct
+    public void reload() {
+        List<Genre> genres = List.copyOf(genreRepository.findAll());
+        List<Mpa> mpaRatings = List.copyOf(mpaRepository.findAll());
+        List<FriendshipStatus> statuses = List.copyOf(statusRepository.findAll());
+
+        snapshot = new Snapshot(
+                index(genres, Genre::getId, Genre[]::new), genres,
+                index(mpaRatings, Mpa::getId, Mpa[]::new), mpaRatings,
+                index(statuses, FriendshipStatus::getId, FriendshipStatus[]::new), statuses,
+                statuses.stream().collect(Collectors.toUnmodifiableMap(FriendshipStatus::getName, Function.identity())));
+        log.info("Reference data loaded: {} genres, {} MPA ratings, {} friendship statuses",
+                genres.size(), mpaRatings.size(), statuses.size());
+    }
+
+    public List<Genre> getGenres() {
+        return snapshot.genreList().stream().map(ReferenceDataCache::copy).toList();
+    }
+
+    public Optional<Genre> findGenre(Integer id) {
+        return lookup(snapshot.genres(), id).map(ReferenceDataCache::copy);
+    }
+
+    public List<Mpa> getMpaRatings() {
+        return snapshot.mpaList().stream().map(ReferenceDataCache::copy).toList();
+    }
+
+    public Optional<Mpa> findMpa(Integer id) {
+        return lookup(snapshot.mpa(), id).map(ReferenceDataCache::copy);
+    }
+
+    public List<FriendshipStatus> getStatuses() {
+        return snapshot.statusList().stream().map(ReferenceDataCache::copy).toList();
+    }
+
+    public Optional<FriendshipStatus> findStatus(Integer id) {
+        return lookup(snapshot.statuses(), id).map(ReferenceDataCache::copy);
+    }
+
+    public Optional<FriendshipStatus> findStatusByName(String name) {
+        return Optional.ofNullable(snapshot.statusesByName().get(name)).map(ReferenceDataCache::copy);
+    }
+
+    /**
+     * Возвращает статус по названию, считая его отсутствие ошибкой конфигурации.
+     *
+     * @param name название статуса
+     * @return статус
+     * @throws IllegalStateException если статус не найден
+     */
+    public FriendshipStatus getStatusByName(String name) {
+        return findStatusByName(name)
+                .orElseThrow(() -> new IllegalStateException(name + " status not found"));
+    }
+
+    private static Genre copy(Genre genre) {
+        return new Genre(genre.getId(), genre.getName());
+    }
+
+    private static Mpa copy(Mpa mpa) {
+        return new Mpa(mpa.getId(), mpa.getCode(), mpa.getDescription());
+    }
+
+    private static FriendshipStatus copy(FriendshipStatus status) {
+        return new FriendshipStatus(status.getId(), status.getName());
+    }
+
+    private static <T> Optional<T> lookup(T[] byId, Integer id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId[id]);
+    }
+
+    private static <T> T[] index(List<T> items, Function<T, Integer> idOf, IntFunction<T[]> newArray) {
+        int maxId = items.stream().mapToInt(idOf::apply).max().orElse(-1);
+        T[] byId = newArray.apply(maxId + 1);
+        items.forEach(item -> byId[idOf.apply(item)] = item);
+        return byId;
+    }
+
+    private record Snapshot(Genre[] genres, List<Genre> genreList,
+                            Mpa[] mpa, List<Mpa> mpaList,
+                            FriendshipStatus[] statuses, List<FriendshipStatus> statusList,
+                            Map<String, FriendshipStatus> statusesByName) {
+    }
+}
@@ -15,38 +15,39 @@ public class RepositoryConfig {
      *
      * @param jdbcTemplate    JdbcTemplate для выполнения SQL-запросов
      * @param genreRepository репозиторий для работы с жанрами
+     * @param referenceData   кэш справочников
      * @return реализация FilmRepository
      */
     @Bean
     public FilmRepository filmRepository(JdbcTemplate jdbcTemplate,
                                          GenreRepository genreRepository,
-                                         MpaRepository mpaRepository) {
-        return new JdbcFilmRepository(jdbcTemplate, genreRepository, mpaRepository);
+                                         ReferenceDataCache referenceData) {
+        return new JdbcFilmRepository(jdbcTemplate, genreRepository, referenceData);
     }
 
     /**
      * Создание бина репозитория для работы с пользователями.
      *
      * @param jdbcTemplate     JdbcTemplate для выполнения SQL-запросов
-     * @param statusRepository
+     * @param referenceData кэш справочников (статусы дружбы)
      * @return реализация UserRepository
      */
     @Bean
-    public UserRepository userRepository(JdbcTemplate jdbcTemplate, FriendshipStatusRepository statusRepository) {
-        return new JdbcUserRepository(jdbcTemplate, statusRepository);
+    public UserRepository userRepository(JdbcTemplate jdbcTemplate, ReferenceDataCache referenceData) {
+        return new JdbcUserRepository(jdbcTemplate, referenceData);
     }
 
     /**
      * Создание бина репозитория для работы с дружескими связями.
      *
      * @param jdbcTemplate     JdbcTemplate для выполнения SQL-запросов
-     * @param statusRepository репозиторий для работы со статусами дружбы
+     * @param referenceData кэш справочников (статусы дружбы)
      * @return реализация FriendRepository
      */
     @Bean
     public FriendRepository friendRepository(JdbcTemplate jdbcTemplate,
-                                             FriendshipStatusRepository statusRepository,
+                                             ReferenceDataCache referenceData,
                                              UserRepository userRepository) {
-        return new JdbcFriendRepository(jdbcTemplate, statusRepository, userRepository);
+        return new JdbcFriendRepository(jdbcTemplate, referenceData, userRepository);
     }
 }
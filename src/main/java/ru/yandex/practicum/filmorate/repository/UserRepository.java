@@ -2,8 +2,11 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * Интерфейс для работы с хранилищем пользователей.
@@ -17,6 +20,22 @@ public interface UserRepository {
      */
     List<User> findAll();
 
+    /**
+     * Получение порции пользователей, упорядоченных по идентификатору (keyset-пагинация)
+     *
+     * @param afterId идентификатор, после которого начинается порция (0 - с начала)
+     * @param limit   максимальное количество пользователей
+     * @return пользователи с id больше afterId в порядке возрастания id
+     */
+    List<User> findPage(int afterId, int limit);
+
+    /**
+     * Последовательный обход идентификаторов всех пользователей в порядке возрастания
+     *
+     * @param action обработчик идентификатора
+     */
+    void forEachId(IntConsumer action);
+
     /**
      * Поиск пользователя по идентификатору
      *
@@ -25,6 +44,22 @@ public interface UserRepository {
      */
     Optional<User> findById(Integer id);
 
+    /**
+     * Поиск пользователей по списку идентификаторов одним запросом
+     *
+     * @param ids идентификаторы пользователей
+     * @return найденные пользователи в порядке следования идентификаторов; несуществующие пропускаются
+     */
+    List<User> findByIds(Collection<Integer> ids);
+
+    /**
+     * Поиск пользователей по списку идентификаторов одним запросом без загрузки их друзей
+     *
+     * @param ids идентификаторы пользователей
+     * @return найденные пользователи с пустыми списками друзей в порядке следования идентификаторов
+     */
+    List<User> findRowsByIds(Collection<Integer> ids);
+
     /**
      * Сохранение нового пользователя
      *
@@ -52,4 +87,20 @@ public interface UserRepository {
 
     boolean existsById(Integer id);
 
+    /**
+     * Получение денормализованного счётчика друзей пользователя без подсчёта по таблице friendship
+     *
+     * @param id идентификатор пользователя
+     * @return количество исходящих связей дружбы или пустой Optional, если пользователь не найден
+     */
+    Optional<Integer> getFriendsCount(Integer id);
+
+    /**
+     * Проверка существования нескольких пользователей одним запросом без загрузки их данных
+     *
+     * @param ids идентификаторы пользователей
+     * @return идентификаторы, для которых пользователь не найден, в порядке следования; пусто, если найдены все
+     */
+    Set<Integer> findMissingIds(Collection<Integer> ids);
+
 }
@@ -0,0 +1,203 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through кэш фильмов перед {@link FilmRepository#findById(Integer)}.
+ * Ограничен по количеству записей (вытесняются давно не запрашивавшиеся) и по времени жизни записи.
+ * Одновременные промахи по одному ID разделяют одну загрузку из базы.
+ * Сервис сбрасывает запись при изменении или удалении фильма; загрузка, которая шла во время сброса,
+ * в кэш не попадает. Наружу отдаются глубокие копии (вместе с рейтингом и жанрами), поэтому изменение
+ * полученного фильма не портит кэш.
+ */
+@Component
+public class FilmCache {
+    private final FilmRepository filmRepository;
+    private final Clock clock;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // Порядок доступа: первой идёт запись, к которой дольше всего не обращались
+    private final LinkedHashMap<Integer, CachedFilm> films = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Integer, CompletableFuture<Optional<Film>>> loading = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    @Autowired
+    public FilmCache(FilmRepository filmRepository, MeterRegistry meterRegistry,
+                     @Value("${filmorate.film-cache.max-size:10000}") int maxSize,
+                     @Value("${filmorate.film-cache.ttl:PT10M}") Duration ttl) {
+        this(filmRepository, meterRegistry, maxSize, ttl, Clock.systemUTC());
+    }
+
+    FilmCache(FilmRepository filmRepository, MeterRegistry meterRegistry, int maxSize, Duration ttl, Clock clock) {
+        this.filmRepository = filmRepository;
+        this.clock = clock;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+
+        Gauge.builder("filmorate.film.cache.size", this, FilmCache::size)
+                .description("Количество фильмов в кэше")
+                .register(meterRegistry);
+        this.hits = Counter.builder("filmorate.film.cache.requests").tag("result", "hit")
+                .description("Обращения к кэшу фильмов")
+                .register(meterRegistry);
+        this.misses = Counter.builder("filmorate.film.cache.requests").tag("result", "miss")
+                .description("Обращения к кэшу фильмов")
+                .register(meterRegistry);
+        this.sizeEvictions = evictionCounter(meterRegistry, "size");
+        this.expirations = evictionCounter(meterRegistry, "expired");
+        this.invalidations = evictionCounter(meterRegistry, "invalidated");
+    }
+
+    /**
+     * Возвращает фильм из кэша или загружает его из базы.
+     *
+     * @param id идентификатор фильма
+     * @return копия фильма или пустой Optional, если фильм не найден
+     */
+    public Optional<Film> get(Integer id) {
+        Film cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(copy(cached));
+        }
+        misses.increment();
+
+        CompletableFuture<Optional<Film>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<Film>> inFlight = loading.putIfAbsent(id, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join().map(FilmCache::copy);
+            } catch (CompletionException e) {
+                throw RequestCoalescer.unwrap(e);
+            }
+        }
+
+        try {
+            Optional<Film> film = filmRepository.findById(id);
+            load.complete(film);
+            // Если запись сбросили во время загрузки, future уже удалён и результат не кэшируется.
+            // Проверка и запись выполняются под той же блокировкой, что и сброс, иначе сброс между ними
+            // оставил бы в кэше фильм, прочитанный до изменения
+            synchronized (films) {
+                if (loading.remove(id, load) && film.isPresent()) {
+                    store(id, film.get());
+                }
+            }
+            return film.map(FilmCache::copy);
+        } catch (Throwable e) {
+            // Любая ошибка, включая Error, должна освободить ожидающих и убрать future из loading
+            loading.remove(id, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Сбрасывает запись фильма после его изменения или удаления.
+     *
+     * @param id идентификатор фильма
+     */
+    public void invalidate(Integer id) {
+        synchronized (films) {
+            loading.remove(id);
+            if (films.remove(id) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает весь кэш, например после изменения справочника жанров.
+     */
+    public void invalidateAll() {
+        synchronized (films) {
+            loading.clear();
+            invalidations.increment(films.size());
+            films.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (films) {
+            return films.size();
+        }
+    }
+
+    private Film lookup(Integer id) {
+        synchronized (films) {
+            CachedFilm entry = films.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= clock.millis()) {
+                films.remove(id);
+                expirations.increment();
+                return null;
+            }
+            return entry.film();
+        }
+    }
+
+    private void store(Integer id, Film film) {
+        synchronized (films) {
+            films.put(id, new CachedFilm(copy(film), clock.millis() + ttlMillis));
+            Iterator<Map.Entry<Integer, CachedFilm>> eldest = films.entrySet().iterator();
+            while (films.size() > maxSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                sizeEvictions.increment();
+            }
+        }
+    }
+
+    private static Film copy(Film film) {
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(film.getMpa() == null ? null
+                        : new Mpa(film.getMpa().getId(), film.getMpa().getCode(), film.getMpa().getDescription()))
+                .genres(film.getGenres() == null ? new LinkedHashSet<>() : film.getGenres().stream()
+                        .map(genre -> new Genre(genre.getId(), genre.getName()))
+                        .collect(Collectors.toCollection(LinkedHashSet::new)))
+                .build();
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("filmorate.film.cache.evictions").tag("cause", cause)
+                .description("Записи, удалённые из кэша фильмов")
+                .register(meterRegistry);
+    }
+
+    private record CachedFilm(Film film, long expiresAt) {
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory матрица лайков: для каждого пользователя - множество понравившихся фильмов,
+ * для каждого фильма - множество поставивших лайк пользователей.
+ * Множества хранятся отсортированными массивами ({@link IntSets}), поэтому пересечения
+ * считаются слиянием массивов без запросов к базе, а память пропорциональна числу лайков.
+ * Матрица строится из базы при старте и обновляется сервисами после коммита.
+ */
+@Slf4j
+@Component
+public class FilmLikesMatrix {
+    private final FilmRepository filmRepository;
+    private final ConcurrentHashMap<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+
+    public FilmLikesMatrix(FilmRepository filmRepository) {
+        this.filmRepository = filmRepository;
+    }
+
+    /**
+     * Полностью перестраивает матрицу по таблице лайков.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        // Лайки приходят упорядоченными по (user_id, film_id), поэтому оба набора массивов
+        // заполняются по возрастанию и не требуют сортировки
+        Map<Integer, IntSets.Builder> films = new HashMap<>();
+        Map<Integer, IntSets.Builder> users = new HashMap<>();
+        int[] loaded = new int[1];
+        filmRepository.forEachLike((userId, filmId) -> {
+            films.computeIfAbsent(userId, id -> new IntSets.Builder()).add(filmId);
+            users.computeIfAbsent(filmId, id -> new IntSets.Builder()).add(userId);
+            loaded[0]++;
+        });
+
+        filmsByUser.clear();
+        usersByFilm.clear();
+        films.forEach((userId, builder) -> filmsByUser.put(userId, builder.build()));
+        users.forEach((filmId, builder) -> usersByFilm.put(filmId, builder.build()));
+        log.info("Likes matrix rebuilt: {} likes, {} users, {} films",
+                loaded[0], filmsByUser.size(), usersByFilm.size());
+    }
+
+    /**
+     * @param userId идентификатор пользователя
+     * @return отсортированный массив идентификаторов понравившихся фильмов; массив не должен изменяться
+     */
+    public int[] filmsOf(int userId) {
+        return filmsByUser.getOrDefault(userId, IntSets.EMPTY);
+    }
+
+    /**
+     * @param filmId идентификатор фильма
+     * @return отсортированный массив идентификаторов пользователей, лайкнувших фильм; массив не должен изменяться
+     */
+    public int[] likersOf(int filmId) {
+        return usersByFilm.getOrDefault(filmId, IntSets.EMPTY);
+    }
+
+    public void addLike(int filmId, int userId) {
+        filmsByUser.compute(userId, (id, set) -> IntSets.insert(set == null ? IntSets.EMPTY : set, filmId));
+        usersByFilm.compute(filmId, (id, set) -> IntSets.insert(set == null ? IntSets.EMPTY : set, userId));
+    }
+
+    public void removeLike(int filmId, int userId) {
+        filmsByUser.computeIfPresent(userId, (id, set) -> emptyToNull(IntSets.remove(set, filmId)));
+        usersByFilm.computeIfPresent(filmId, (id, set) -> emptyToNull(IntSets.remove(set, userId)));
+    }
+
+    public void removeFilm(int filmId) {
+        int[] likers = usersByFilm.remove(filmId);
+        if (likers != null) {
+            for (int userId : likers) {
+                filmsByUser.computeIfPresent(userId, (id, set) -> emptyToNull(IntSets.remove(set, filmId)));
+            }
+        }
+    }
+
+    public void removeUser(int userId) {
+        int[] films = filmsByUser.remove(userId);
+        if (films != null) {
+            for (int filmId : films) {
+                usersByFilm.computeIfPresent(filmId, (id, set) -> emptyToNull(IntSets.remove(set, userId)));
+            }
+        }
+    }
+
+    private static int[] emptyToNull(int[] set) {
+        return set.length == 0 ? null : set;
+    }
+}
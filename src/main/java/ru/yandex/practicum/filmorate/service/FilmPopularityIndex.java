@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory индекс популярности фильмов.
+ * Хранит упорядоченное множество пар (количество лайков, ID фильма), что позволяет получить
+ * top-K фильмов за O(K) без обращения к базе.
+ * Индекс строится из базы при старте, обновляется сервисом после коммита транзакции
+ * и периодически сверяется с films.likes_count.
+ */
+@Slf4j
+@Component
+public class FilmPopularityIndex {
+    private static final Comparator<Entry> BY_POPULARITY = Comparator
+            .comparingLong(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final FilmRepository filmRepository;
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_POPULARITY);
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger lastDrift = new AtomicInteger();
+    private final Counter corrections;
+    private volatile boolean ready;
+
+    public FilmPopularityIndex(FilmRepository filmRepository, MeterRegistry meterRegistry) {
+        this.filmRepository = filmRepository;
+        Gauge.builder("filmorate.popularity.index.drift", lastDrift, AtomicInteger::get)
+                .description("Количество фильмов, расходившихся с базой при последней сверке")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.popularity.index.size", entries, Map::size)
+                .description("Количество фильмов в индексе популярности")
+                .register(meterRegistry);
+        this.corrections = Counter.builder("filmorate.popularity.index.corrections")
+                .description("Количество исправлений индекса по результатам сверки с базой")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Полностью перестраивает индекс по счётчикам лайков из базы.
+     */
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, Integer> counts = filmRepository.getLikesCounts();
+        entries.keySet().retainAll(counts.keySet());
+        counts.forEach(this::set);
+        ranking.removeIf(entry -> !entry.equals(entries.get(entry.filmId())));
+        ready = true;
+        log.info("Popularity index rebuilt: {} films", counts.size());
+    }
+
+    /**
+     * Сверяет индекс со счётчиками в базе и исправляет расхождения.
+     * Запись исправляется, только если она не менялась с момента перед чтением базы: иначе сверка
+     * затёрла бы лайк, применённый после коммита параллельной транзакции. Пропущенное расхождение
+     * будет исправлено следующей сверкой.
+     *
+     * @return количество исправленных фильмов
+     */
+    @Scheduled(initialDelayString = "${filmorate.popularity-index.check-interval:PT5M}",
+            fixedDelayString = "${filmorate.popularity-index.check-interval:PT5M}")
+    public int verify() {
+        Map<Integer, Entry> seen = new HashMap<>(entries);
+        Map<Integer, Integer> counts = filmRepository.getLikesCounts();
+        int drift = 0;
+
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            int filmId = count.getKey();
+            Entry before = seen.get(filmId);
+            if ((before == null || before.likes() != count.getValue())
+                    && compareAndSet(filmId, before, new Entry(count.getValue(), filmId))) {
+                drift++;
+            }
+        }
+        for (Map.Entry<Integer, Entry> entry : seen.entrySet()) {
+            if (!counts.containsKey(entry.getKey()) && compareAndSet(entry.getKey(), entry.getValue(), null)) {
+                drift++;
+            }
+        }
+
+        lastDrift.set(drift);
+        if (drift > 0) {
+            corrections.increment(drift);
+            log.warn("Popularity index drift: {} films corrected", drift);
+        }
+        return drift;
+    }
+
+    /**
+     * @return true, если индекс построен и может использоваться вместо запроса к базе
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Возвращает идентификаторы самых популярных фильмов.
+     *
+     * @param count количество фильмов
+     * @return идентификаторы фильмов, отсортированные по убыванию количества лайков
+     */
+    public List<Integer> getTopFilmIds(int count) {
+        List<Integer> result = new ArrayList<>(Math.max(0, Math.min(count, entries.size())));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            result.add(iterator.next().filmId());
+        }
+        return result;
+    }
+
+    /**
+     * Обходит фильмы по убыванию количества лайков, пока обработчик возвращает true.
+     *
+     * @param action обработчик, получающий идентификатор фильма
+     */
+    public void forEachByPopularity(IntPredicate action) {
+        for (Entry entry : ranking) {
+            if (!action.test(entry.filmId())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Возвращает текущее количество лайков фильма по индексу.
+     *
+     * @param filmId идентификатор фильма
+     * @return количество лайков или 0, если фильма нет в индексе
+     */
+    public long getLikes(int filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? 0 : entry.likes();
+    }
+
+    /**
+     * Возвращает снимок счётчиков лайков всех фильмов индекса.
+     *
+     * @return отображение идентификатора фильма в количество лайков
+     */
+    public Map<Integer, Long> snapshot() {
+        Map<Integer, Long> result = new HashMap<>(entries.size());
+        entries.forEach((filmId, entry) -> result.put(filmId, entry.likes()));
+        return result;
+    }
+
+    public void addFilm(int filmId) {
+        entries.computeIfAbsent(filmId, id -> {
+            Entry entry = new Entry(0, id);
+            ranking.add(entry);
+            return entry;
+        });
+    }
+
+    public void increment(int filmId) {
+        change(filmId, 1);
+    }
+
+    public void decrement(int filmId) {
+        change(filmId, -1);
+    }
+
+    public void remove(int filmId) {
+        entries.computeIfPresent(filmId, (id, entry) -> {
+            ranking.remove(entry);
+            return null;
+        });
+    }
+
+    private void set(int filmId, long likes) {
+        entries.compute(filmId, (id, old) -> replace(old, new Entry(likes, id)));
+    }
+
+    private void change(int filmId, int delta) {
+        entries.compute(filmId, (id, old) ->
+                replace(old, new Entry(Math.max(0, (old == null ? 0 : old.likes()) + delta), id)));
+    }
+
+    /**
+     * Заменяет запись фильма, если она всё ещё тот же объект, что и expected.
+     * Каждое изменение создаёт новую запись, поэтому сравнение по ссылке замечает и изменения,
+     * вернувшие прежнее количество лайков.
+     *
+     * @param updated новая запись или null для удаления фильма из индекса
+     * @return true, если запись заменена
+     */
+    private boolean compareAndSet(int filmId, Entry expected, Entry updated) {
+        boolean[] applied = {false};
+        entries.compute(filmId, (id, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            if (current != null) {
+                ranking.remove(current);
+            }
+            if (updated != null) {
+                ranking.add(updated);
+            }
+            applied[0] = true;
+            return updated;
+        });
+        return applied[0];
+    }
+
+    private Entry replace(Entry old, Entry updated) {
+        if (old != null) {
+            ranking.remove(old);
+        }
+        ranking.add(updated);
+        return updated;
+    }
+
+    private record Entry(long likes, int filmId) {
+    }
+}
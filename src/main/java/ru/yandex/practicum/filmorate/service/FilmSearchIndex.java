@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process инвертированный индекс по названиям и описаниям фильмов.
+ * Для каждой основы слова ({@link SearchTokenizer}) хранит фильмы, в которых она встречается, с весом:
+ * совпадение в названии весит больше совпадения в описании. Результаты ранжируются по сумме весов,
+ * умноженных на IDF основы, так что редкие слова запроса важнее частых.
+ * Индекс строится из базы при старте и обновляется сервисом при создании, изменении и удалении фильмов.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final FilmRepository filmRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+
+    @Value("${filmorate.index.rebuild-fetch-size:500}")
+    private int fetchSize = 500;
+
+    public FilmSearchIndex(FilmRepository filmRepository) {
+        this.filmRepository = filmRepository;
+    }
+
+    /**
+     * Полностью перестраивает индекс по фильмам из базы.
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            filmRepository.forEachFilm(fetchSize, this::put);
+            log.info("Search index rebuilt: {} films, {} terms", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет фильм в индекс или заменяет его прежнюю версию.
+     *
+     * @param film фильм с заполненными идентификатором, названием и описанием
+     */
+    public void index(Film film) {
+        lock.writeLock().lock();
+        try {
+            delete(film.getId());
+            put(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            delete(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет фильмы по словам запроса.
+     *
+     * @param query  поисковый запрос
+     * @param offset количество пропускаемых результатов
+     * @param limit  размер страницы
+     * @return идентификаторы фильмов страницы по убыванию релевантности, при равенстве - по возрастанию ID
+     */
+    public List<Integer> search(String query, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(query));
+        Map<Integer, Double> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            int total = documents.size();
+            for (String term : terms) {
+                Map<Integer, Integer> films = postings.get(term);
+                if (films == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (double) total / films.size());
+                films.forEach((filmId, weight) -> scores.merge(filmId, weight * idf, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void put(Film film) {
+        Map<String, Integer> terms = new HashMap<>();
+        SearchTokenizer.tokenize(film.getName()).forEach(term -> terms.merge(term, NAME_WEIGHT, Integer::sum));
+        SearchTokenizer.tokenize(film.getDescription())
+                .forEach(term -> terms.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+        documents.put(film.getId(), terms);
+        terms.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(film.getId(), weight));
+    }
+
+    private void delete(int filmId) {
+        Map<String, Integer> terms = documents.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Integer, Integer> films = postings.get(term);
+            films.remove(filmId);
+            if (films.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+}
@@ -1,18 +1,32 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -24,10 +38,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FilmService {
     private final FilmRepository filmRepository;
-    private final UserService userService;
     private final MpaService mpaService;
     private final GenreService genreService;
     private final UserRepository userRepository;
+    private final FilmPopularityIndex popularityIndex;
+    private final TrendingFilmsIndex trendingIndex;
+    private final FilmLikesMatrix likesMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final FilmTitleIndex titleIndex;
+    private final FilmCache filmCache;
+    private final RequestCoalescer coalescer;
+
+    private final Validator validator;
+
+    @Value("${filmorate.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${filmorate.bulk.chunk-size:500}")
+    private int bulkChunkSize;
 
     /**
      * Получает список всех фильмов.
@@ -38,6 +66,64 @@ public class FilmService {
         return filmRepository.findAll();
     }
 
+    /**
+     * Получает страницу фильмов, упорядоченных по идентификатору.
+     *
+     * @param cursor курсор, полученный с предыдущей страницей, или null для первой страницы
+     * @param limit  размер страницы
+     * @return страница фильмов с курсором следующей страницы
+     */
+    public Page<Film> findPage(String cursor, int limit) {
+        PageCursor.validateLimit(limit);
+        List<Film> rows = filmRepository.findPage(PageCursor.decode(cursor), limit + 1);
+        return PageCursor.toPage(rows, limit, Film::getId);
+    }
+
+    /**
+     * Последовательно передаёт все фильмы каталога обработчику, не загружая каталог в память целиком.
+     *
+     * @param action обработчик фильма
+     */
+    public void exportAll(Consumer<Film> action) {
+        filmRepository.forEachFilm(exportFetchSize, action);
+    }
+
+    /**
+     * Ищет фильмы по словам в названии и описании.
+     *
+     * @param query  поисковый запрос
+     * @param offset количество пропускаемых результатов
+     * @param limit  размер страницы
+     * @return страница объектов {@link Film}, отсортированных по убыванию релевантности
+     * @throws ValidationException если запрос пуст или параметры страницы некорректны
+     */
+    public List<Film> search(String query, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Search query must not be empty");
+        }
+        if (offset < 0) {
+            throw new ValidationException("Offset must not be negative");
+        }
+        PageCursor.validateLimit(limit);
+        return filmRepository.findByIds(searchIndex.search(query, offset, limit));
+    }
+
+    /**
+     * Подбирает фильмы для автодополнения по началу названия.
+     *
+     * @param prefix начало названия
+     * @param limit  максимальное количество подсказок
+     * @return подсказки, отсортированные по убыванию количества лайков
+     * @throws ValidationException если префикс пуст или limit некорректен
+     */
+    public List<FilmSuggestion> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new ValidationException("Prefix must not be empty");
+        }
+        PageCursor.validateLimit(limit);
+        return titleIndex.suggest(prefix, limit);
+    }
+
     /**
      * Находит фильм по его идентификатору.
      *
@@ -46,7 +132,7 @@ public class FilmService {
      * @throws NotFoundException если фильм с указанным id не найден
      */
     public Film findById(Integer id) {
-        return filmRepository.findById(id)
+        return filmCache.get(id)
                 .orElseThrow(() -> new NotFoundException("Film not found with id: " + id));
     }
 
@@ -67,7 +153,96 @@ public class FilmService {
             checkGenresExist(film.getGenres());
         }
 
-        return filmRepository.save(film);
+        Film saved = filmRepository.save(film);
+        popularityIndex.addFilm(saved.getId());
+        searchIndex.index(saved);
+        titleIndex.index(saved);
+        return saved;
+    }
+
+    /**
+     * Массово создаёт фильмы.
+     * Справочники MPA и жанров загружаются один раз на весь запрос, фильмы и их жанры
+     * вставляются пакетами по filmorate.bulk.chunk-size. Ошибка в одном фильме не прерывает импорт остальных.
+     *
+     * @param films фильмы для создания
+     * @return результат по каждому фильму: присвоенный идентификатор или описание ошибки
+     */
+    public BulkResult createAll(List<Film> films) {
+        Set<Integer> mpaIds = mpaService.findAll().stream().map(Mpa::getId).collect(Collectors.toSet());
+        Set<Integer> genreIds = genreService.findAll().stream().map(Genre::getId).collect(Collectors.toSet());
+
+        BulkResult result = new BulkResult();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            String error = validateForImport(films.get(i), mpaIds, genreIds);
+            if (error == null) {
+                validIndexes.add(i);
+            } else {
+                result.addFailure(i, null, error);
+            }
+        }
+
+        for (int from = 0; from < validIndexes.size(); from += bulkChunkSize) {
+            List<Integer> chunk = validIndexes.subList(from, Math.min(from + bulkChunkSize, validIndexes.size()));
+            try {
+                saveChunk(films, chunk, result);
+            } catch (DataAccessException e) {
+                // Пакет откатился целиком - сохраняем его фильмы по одному, чтобы найти проблемные
+                chunk.forEach(index -> {
+                    try {
+                        saveChunk(films, List.of(index), result);
+                    } catch (DataAccessException ex) {
+                        result.addFailure(index, null, ex.getMostSpecificCause().getMessage());
+                    }
+                });
+            }
+        }
+        return result.sorted();
+    }
+
+    private void saveChunk(List<Film> films, List<Integer> indexes, BulkResult result) {
+        List<Film> chunk = indexes.stream().map(films::get).toList();
+        filmRepository.saveAll(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            popularityIndex.addFilm(chunk.get(i).getId());
+            searchIndex.index(chunk.get(i));
+            titleIndex.index(chunk.get(i));
+            result.addSuccess(indexes.get(i), chunk.get(i).getId());
+        }
+    }
+
+    private String validateForImport(Film film, Set<Integer> mpaIds, Set<Integer> genreIds) {
+        if (film == null) {
+            return "Film must not be null";
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
+            return "Дата релиза не может быть раньше 28 декабря 1895 года";
+        }
+        if (film.getName().length() > 150) {
+            return "Название фильма не должно превышать 150 символов";
+        }
+        if (film.getDuration() == null) {
+            return "Продолжительность обязательна";
+        }
+        if (film.getMpa() == null || !mpaIds.contains(film.getMpa().getId())) {
+            return "MPA rating not found: " + (film.getMpa() == null ? null : film.getMpa().getId());
+        }
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (genre == null || !genreIds.contains(genre.getId())) {
+                    return "Жанр с ID " + (genre == null ? null : genre.getId()) + " не найден";
+                }
+            }
+        }
+        return null;
     }
 
     private void checkGenresExist(Set<Genre> genres) {
@@ -92,8 +267,12 @@ public class FilmService {
      * @throws NotFoundException если фильм с указанным id не найден
      */
     public Film update(Film film) {
-        findById(film.getId()); // Проверка существования фильма
-        return filmRepository.update(film);
+        // Существование фильма проверяет репозиторий по количеству обновлённых строк
+        Film updated = filmRepository.update(film);
+        filmCache.invalidate(updated.getId());
+        searchIndex.index(updated);
+        titleIndex.index(updated);
+        return updated;
     }
 
     /**
@@ -103,6 +282,12 @@ public class FilmService {
      */
     public void delete(Integer id) {
         filmRepository.delete(id);
+        filmCache.invalidate(id);
+        popularityIndex.remove(id);
+        trendingIndex.removeFilm(id);
+        likesMatrix.removeFilm(id);
+        searchIndex.remove(id);
+        titleIndex.remove(id);
     }
 
     /**
@@ -114,17 +299,29 @@ public class FilmService {
      */
     @Transactional
     public void addLike(Integer filmId, Integer userId) {
-        // Проверяем существование фильма и пользователя
-        findById(filmId);
-        userService.findById(userId);
-
-        // Проверяем, не ставил ли уже пользователь лайк
-        if (filmRepository.hasLike(filmId, userId)) {
+        // Быстрый путь: проверки и вставка одним запросом, разбор причины - только при отказе
+        // Одно и то же время уходит в базу и в индекс трендов, чтобы пересборка индекса не сдвигала лайк
+        Instant likedAt = Instant.now();
+        boolean added;
+        try {
+            added = filmRepository.addLike(filmId, userId, likedAt);
+        } catch (DuplicateKeyException e) {
+            // Параллельный лайк от того же пользователя успел вставиться первым
             throw new ValidationException("User " + userId + " already liked film " + filmId);
+        } catch (DataIntegrityViolationException e) {
+            // Фильм или пользователь удалены параллельно
+            throw new NotFoundException("Film " + filmId + " or user " + userId + " not found");
         }
 
-        // Добавляем лайк
-        filmRepository.addLike(filmId, userId);
+        if (!added) {
+            checkFilmAndUserExist(filmId, userId);
+            throw new ValidationException("User " + userId + " already liked film " + filmId);
+        }
+        TransactionHooks.afterCommit(() -> {
+            popularityIndex.increment(filmId);
+            trendingIndex.recordLike(filmId, likedAt);
+            likesMatrix.addLike(filmId, userId);
+        });
     }
 
     /**
@@ -132,34 +329,93 @@ public class FilmService {
      *
      * @param filmId идентификатор фильма
      * @param userId идентификатор пользователя
-     * @throws NotFoundException если фильм или пользователь не найдены
+     * @throws NotFoundException если фильм, пользователь или лайк не найдены
      */
     @Transactional
     public void removeLike(Integer filmId, Integer userId) {
-        // Проверяем существование фильма и пользователя
+        Instant likedAt = filmRepository.removeLike(filmId, userId).orElse(null);
+        if (likedAt == null) {
+            checkFilmAndUserExist(filmId, userId);
+            throw new NotFoundException("Like from user " + userId + " to film " + filmId + " not found");
+        }
+        TransactionHooks.afterCommit(() -> {
+            popularityIndex.decrement(filmId);
+            trendingIndex.removeLike(filmId, likedAt);
+            likesMatrix.removeLike(filmId, userId);
+        });
+    }
+
+    /**
+     * Выясняет причину несработавшей операции с лайком: отсутствие фильма или пользователя.
+     * Вызывается только на редком пути ошибки, поэтому не влияет на задержку успешных запросов.
+     */
+    private void checkFilmAndUserExist(Integer filmId, Integer userId) {
         if (!filmRepository.existsById(filmId)) {
-            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+            throw new NotFoundException("Film not found with id: " + filmId);
         }
         if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+            throw new NotFoundException("User not found with id: " + userId);
         }
-
-        // Проверяем, ставил ли пользователь лайк
-        if (!filmRepository.hasLike(filmId, userId)) {
-            throw new NotFoundException("Like from user " + userId + " to film " + filmId + " not found");
-        }
-
-        // Удаляем лайк
-        filmRepository.removeLike(filmId, userId);
     }
 
     /**
      * Получает список самых популярных фильмов.
      *
      * @param count количество фильмов в списке
-     * @return список объектов {@link Film}, отсортированных по количеству лайков
+     * @return неизменяемый список объектов {@link Film}, отсортированных по количеству лайков;
+     * может быть общим для одновременных вызовов, фильмы в нём не должны изменяться
+     * @throws ValidationException если count вне диапазона 1..{@value PageCursor#MAX_LIMIT}
      */
     public List<Film> getPopularFilms(int count) {
-        return filmRepository.getPopularFilms(count);
+        PageCursor.validateLimit(count);
+        // Одновременные одинаковые запросы разделяют одно обращение к базе
+        return coalescer.execute("films.popular", count, () -> {
+            if (!popularityIndex.isReady()) {
+                return List.copyOf(filmRepository.getPopularFilms(count));
+            }
+            return List.copyOf(filmRepository.findByIds(popularityIndex.getTopFilmIds(count)));
+        });
+    }
+
+    /**
+     * Получает список самых популярных фильмов с фильтрами по жанру, рейтингу MPA и году выхода.
+     * Без фильтров результат берётся из in-memory индекса популярности.
+     *
+     * @param count   количество фильмов в списке
+     * @param genreId идентификатор жанра или null
+     * @param mpaId   идентификатор рейтинга MPA или null
+     * @param year    год выхода или null
+     * @return неизменяемый список объектов {@link Film}, отсортированных по количеству лайков;
+     * может быть общим для одновременных вызовов, фильмы в нём не должны изменяться
+     * @throws NotFoundException   если указан несуществующий жанр или рейтинг
+     * @throws ValidationException если count вне диапазона 1..{@value PageCursor#MAX_LIMIT}
+     */
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer mpaId, Integer year) {
+        if (genreId == null && mpaId == null && year == null) {
+            return getPopularFilms(count);
+        }
+        PageCursor.validateLimit(count);
+        if (genreId != null) {
+            genreService.findById(genreId);
+        }
+        if (mpaId != null) {
+            mpaService.findById(mpaId);
+        }
+        return coalescer.execute("films.popular.filtered", Arrays.asList(count, genreId, mpaId, year),
+                () -> List.copyOf(filmRepository.getPopularFilms(count, genreId, mpaId, year)));
+    }
+
+    /**
+     * Получает фильмы, набравшие больше всего лайков за последнее время.
+     *
+     * @param window окно: "24h" или "7d"
+     * @param count  количество фильмов в списке
+     * @return список объектов {@link Film}, отсортированных по количеству лайков в окне
+     * @throws ValidationException если окно не поддерживается или count вне диапазона 1..{@value PageCursor#MAX_LIMIT}
+     */
+    public List<Film> getTrendingFilms(String window, int count) {
+        PageCursor.validateLimit(count);
+        TrendingFilmsIndex.Window trendWindow = TrendingFilmsIndex.Window.parse(window);
+        return filmRepository.findByIds(trendingIndex.getTopFilmIds(trendWindow, count));
     }
-}
\ No newline at end of file
+}
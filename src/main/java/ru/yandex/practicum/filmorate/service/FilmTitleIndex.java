@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory индекс названий фильмов для автодополнения по префиксу.
+ * Нормализованные названия хранятся в упорядоченном множестве, поэтому фильмы с заданным префиксом
+ * образуют непрерывный диапазон. Короткий диапазон ранжируется по лайкам целиком; если подходящих
+ * названий слишком много (короткий префикс), фильмы перебираются по убыванию популярности
+ * из {@link FilmPopularityIndex} до набора нужного количества - при частом префиксе это быстро.
+ * Перебор ограничен {@value #MAX_POPULARITY_SCAN} фильмами: если подходящие фильмы не нашлись среди
+ * популярных, подсказки добираются из уже просмотренного начала диапазона названий.
+ * Индекс строится из базы при старте и обновляется сервисом при создании, изменении и удалении фильмов.
+ */
+@Slf4j
+@Component
+public class FilmTitleIndex {
+    private static final int MAX_RANGE_SCAN = 2000;
+    private static final int MAX_POPULARITY_SCAN = 10_000;
+    private static final Comparator<Entry> BY_TITLE = Comparator
+            .comparing(Entry::title)
+            .thenComparingInt(Entry::filmId);
+
+    private final FilmRepository filmRepository;
+    private final FilmPopularityIndex popularityIndex;
+    private final ConcurrentSkipListSet<Entry> titles = new ConcurrentSkipListSet<>(BY_TITLE);
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${filmorate.index.rebuild-fetch-size:500}")
+    private int fetchSize = 500;
+
+    public FilmTitleIndex(FilmRepository filmRepository, FilmPopularityIndex popularityIndex) {
+        this.filmRepository = filmRepository;
+        this.popularityIndex = popularityIndex;
+    }
+
+    /**
+     * Полностью перестраивает индекс по фильмам из базы.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        titles.clear();
+        entries.clear();
+        filmRepository.forEachFilm(fetchSize, this::index);
+        log.info("Title index rebuilt: {} films", entries.size());
+    }
+
+    /**
+     * Добавляет фильм в индекс или заменяет его прежнее название.
+     *
+     * @param film фильм с заполненными идентификатором и названием
+     */
+    public void index(Film film) {
+        Entry entry = new Entry(normalize(film.getName()), film.getId(), film.getName());
+        entries.compute(film.getId(), (id, old) -> {
+            if (old != null) {
+                titles.remove(old);
+            }
+            titles.add(entry);
+            return entry;
+        });
+    }
+
+    public void remove(int filmId) {
+        entries.computeIfPresent(filmId, (id, old) -> {
+            titles.remove(old);
+            return null;
+        });
+    }
+
+    /**
+     * Подбирает фильмы, название которых начинается с префикса.
+     *
+     * @param prefix начало названия, без учёта регистра
+     * @param limit  максимальное количество подсказок
+     * @return подсказки по убыванию количества лайков
+     */
+    public List<FilmSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Entry> range = new ArrayList<>();
+        for (Entry entry : titles.tailSet(new Entry(key, Integer.MIN_VALUE, null))) {
+            if (!entry.title().startsWith(key)) {
+                break;
+            }
+            if (range.size() == MAX_RANGE_SCAN) {
+                return suggestByPopularity(key, limit, range);
+            }
+            range.add(entry);
+        }
+        return rankByLikes(range, limit);
+    }
+
+    private List<FilmSuggestion> suggestByPopularity(String key, int limit, List<Entry> range) {
+        List<FilmSuggestion> result = new ArrayList<>(limit);
+        int[] scanned = {0};
+        popularityIndex.forEachByPopularity(filmId -> {
+            Entry entry = entries.get(filmId);
+            if (entry != null && entry.title().startsWith(key)) {
+                result.add(new FilmSuggestion(filmId, entry.name(), popularityIndex.getLikes(filmId)));
+            }
+            return result.size() < limit && ++scanned[0] < MAX_POPULARITY_SCAN;
+        });
+        if (result.size() < limit) {
+            // Подходящие фильмы мало популярны - добираем из просмотренного начала диапазона названий
+            Set<Integer> found = result.stream().map(FilmSuggestion::getId).collect(Collectors.toSet());
+            rankByLikes(range, range.size()).stream()
+                    .filter(suggestion -> !found.contains(suggestion.getId()))
+                    .limit(limit - result.size())
+                    .forEach(result::add);
+        }
+        return result;
+    }
+
+    private List<FilmSuggestion> rankByLikes(List<Entry> range, int limit) {
+        return range.stream()
+                .map(entry -> new FilmSuggestion(entry.filmId(), entry.name(), popularityIndex.getLikes(entry.filmId())))
+                .sorted(Comparator.comparingLong(FilmSuggestion::getLikes).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static String normalize(String title) {
+        return SearchTokenizer.normalize(title.strip()).replaceAll("\\s+", " ");
+    }
+
+    private record Entry(String title, int filmId, String name) {
+    }
+}
@@ -0,0 +1,503 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory граф дружбы.
+ * Исходящие связи всех пользователей хранятся в формате CSR (compressed sparse row): общий массив
+ * идентификаторов друзей, отсортированных внутри строки пользователя, параллельный массив статусов
+ * и массив смещений начала строки каждого пользователя. Так граф занимает три массива int
+ * независимо от числа пользователей, а общие друзья находятся слиянием двух отсортированных строк.
+ * Входящие связи хранятся так же во втором, транспонированном CSR: дружба записывается одной строкой
+ * friendship (от отправителя заявки к получателю), и без обратных связей получатель не видел бы отправителя.
+ * Изменения пишутся copy-on-write: изменённая строка пользователя заменяется новой и хранится
+ * поверх базового CSR, а когда таких строк накапливается много, они вливаются в новый CSR.
+ * Граф строится из базы при старте и обновляется {@link FriendService} после коммита.
+ */
+@Slf4j
+@Component
+public class FriendGraph {
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+    private static final int NO_PARENT = -1;
+    private static final int ANY_STATUS = -1;
+
+    private final FriendRepository friendRepository;
+    private final Adjacency outgoing = new Adjacency();
+    private final Adjacency incoming = new Adjacency();
+
+    public FriendGraph(FriendRepository friendRepository) {
+        this.friendRepository = friendRepository;
+    }
+
+    /**
+     * Полностью перестраивает граф по таблице friendship.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        CsrBuilder builder = new CsrBuilder();
+        friendRepository.forEachFriendship(builder::add);
+        Csr csr = builder.build();
+        outgoing.reset(csr);
+        incoming.reset(csr.transpose());
+        log.info("Friend graph rebuilt: {} edges", csr.targets.length);
+    }
+
+    /**
+     * @param userId идентификатор пользователя
+     * @return исходящие связи пользователя; строка неизменяема
+     */
+    public Row friendsOf(int userId) {
+        return outgoing.row(userId);
+    }
+
+    /**
+     * @param userId идентификатор пользователя
+     * @return входящие связи пользователя (кто добавил его в друзья); строка неизменяема
+     */
+    public Row incomingOf(int userId) {
+        return incoming.row(userId);
+    }
+
+    /**
+     * @return true, если есть связь userId -> friendId с любым статусом
+     */
+    public boolean hasEdge(int userId, int friendId) {
+        return friendsOf(userId).indexOf(friendId) >= 0;
+    }
+
+    /**
+     * Находит общих друзей двух пользователей (связи с любым статусом).
+     *
+     * @return отсортированный массив идентификаторов общих друзей
+     */
+    public int[] commonFriends(int userId, int otherId) {
+        Row a = friendsOf(userId);
+        Row b = friendsOf(otherId);
+        return IntSets.intersect(a.ids, a.from, a.to, b.ids, b.from, b.to);
+    }
+
+    /**
+     * Подбирает кандидатов в друзья среди друзей друзей, ранжируя их по числу общих друзей.
+     * Друзьями считаются исходящие связи с любым статусом и подтверждённые входящие.
+     * Из каждой строки (и самого пользователя, и его друзей) рассматриваются не более fanOutCap связей,
+     * поэтому обход ограничен fanOutCap² шагами даже для пользователей с огромным числом друзей.
+     * Исключаются сам пользователь, его друзья и заявки в обе стороны.
+     *
+     * @param userId            идентификатор пользователя
+     * @param limit             максимальное количество кандидатов
+     * @param fanOutCap         максимальное количество связей, рассматриваемых из одной строки
+     * @param confirmedStatusId идентификатор статуса CONFIRMED
+     * @return идентификаторы кандидатов по убыванию числа общих друзей, при равенстве - по возрастанию ID
+     */
+    public List<Integer> suggestFriends(int userId, int limit, int fanOutCap, int confirmedStatusId) {
+        int[] friends = links(userId, ANY_STATUS, confirmedStatusId);
+        Row sent = friendsOf(userId);
+        Row received = incomingOf(userId);
+        Map<Integer, Integer> mutualCounts = new HashMap<>();
+        for (int i = 0; i < Math.min(friends.length, fanOutCap); i++) {
+            int[] secondHop = links(friends[i], ANY_STATUS, confirmedStatusId);
+            for (int j = 0; j < Math.min(secondHop.length, fanOutCap); j++) {
+                int candidateId = secondHop[j];
+                if (candidateId != userId && sent.indexOf(candidateId) < 0 && received.indexOf(candidateId) < 0) {
+                    mutualCounts.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+
+        return mutualCounts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Ищет кратчайшую цепочку связей с заданным статусом между двумя пользователями двунаправленным
+     * поиском в ширину: на каждом шаге расширяется меньший из двух фронтов (от начала и от конца),
+     * и поиск останавливается, как только фронты встретились. Связь с нужным статусом соединяет
+     * пользователей независимо от её направления, поэтому оба фронта идут и по исходящим, и по входящим связям.
+     * Посещённые вершины хранятся в {@link IntIntHashMap} вместе с родителем для восстановления пути.
+     * Поиск прекращается, если число посещённых вершин превысило visitBudget или истёк timeout.
+     *
+     * @param fromId      начальный пользователь
+     * @param toId        конечный пользователь
+     * @param statusId    статус связей, по которым разрешено идти
+     * @param maxDepth    максимальная длина цепочки в связях
+     * @param visitBudget максимальное количество посещённых вершин
+     * @param timeout     максимальное время поиска
+     * @return найденная цепочка; если её нет, путь пуст, а truncated показывает, что поиск был прерван
+     */
+    public PathResult shortestPath(int fromId, int toId, int statusId, int maxDepth, int visitBudget,
+                                   Duration timeout) {
+        if (fromId == toId) {
+            return new PathResult(List.of(fromId), false);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        IntIntHashMap forwardParents = new IntIntHashMap(64);
+        IntIntHashMap backwardParents = new IntIntHashMap(64);
+        forwardParents.put(fromId, NO_PARENT);
+        backwardParents.put(toId, NO_PARENT);
+        int[] forwardFrontier = {fromId};
+        int[] backwardFrontier = {toId};
+
+        for (int depth = 0; depth < maxDepth && forwardFrontier.length > 0 && backwardFrontier.length > 0; depth++) {
+            boolean forward = forwardFrontier.length <= backwardFrontier.length;
+            IntIntHashMap parents = forward ? forwardParents : backwardParents;
+            IntIntHashMap opposite = forward ? backwardParents : forwardParents;
+            IntSets.Builder next = new IntSets.Builder();
+            for (int userId : forward ? forwardFrontier : backwardFrontier) {
+                if (System.nanoTime() - deadline > 0) {
+                    return new PathResult(List.of(), true);
+                }
+                for (int friendId : links(userId, statusId, statusId)) {
+                    if (parents.containsKey(friendId)) {
+                        continue;
+                    }
+                    parents.put(friendId, userId);
+                    if (opposite.containsKey(friendId)) {
+                        return new PathResult(joinPath(friendId, forwardParents, backwardParents), false);
+                    }
+                    if (forwardParents.size() + backwardParents.size() > visitBudget) {
+                        return new PathResult(List.of(), true);
+                    }
+                    next.add(friendId);
+                }
+            }
+            if (forward) {
+                forwardFrontier = next.build();
+            } else {
+                backwardFrontier = next.build();
+            }
+        }
+        return new PathResult(List.of(), false);
+    }
+
+    /**
+     * Склеивает путь от начала до вершины встречи фронтов и от неё до конца.
+     */
+    private static List<Integer> joinPath(int meetingId, IntIntHashMap forwardParents,
+                                          IntIntHashMap backwardParents) {
+        List<Integer> path = new ArrayList<>();
+        for (int userId = meetingId; userId != NO_PARENT; userId = forwardParents.get(userId, NO_PARENT)) {
+            path.add(userId);
+        }
+        Collections.reverse(path);
+        for (int userId = backwardParents.get(meetingId, NO_PARENT); userId != NO_PARENT;
+             userId = backwardParents.get(userId, NO_PARENT)) {
+            path.add(userId);
+        }
+        return path;
+    }
+
+    /**
+     * Связи пользователя в обе стороны: слияние исходящих связей со статусом outgoingStatusId
+     * (или с любым статусом) и входящих со статусом incomingStatusId.
+     *
+     * @return отсортированный массив идентификаторов без повторов
+     */
+    private int[] links(int userId, int outgoingStatusId, int incomingStatusId) {
+        Row out = friendsOf(userId);
+        Row in = incomingOf(userId);
+        IntSets.Builder result = new IntSets.Builder();
+        int i = 0;
+        int j = 0;
+        while (i < out.size() || j < in.size()) {
+            if (i < out.size() && !hasStatus(out, i, outgoingStatusId)) {
+                i++;
+            } else if (j < in.size() && !hasStatus(in, j, incomingStatusId)) {
+                j++;
+            } else if (j == in.size() || (i < out.size() && out.friendId(i) < in.friendId(j))) {
+                result.add(out.friendId(i++));
+            } else if (i == out.size() || in.friendId(j) < out.friendId(i)) {
+                result.add(in.friendId(j++));
+            } else {
+                result.add(out.friendId(i++));
+                j++;
+            }
+        }
+        return result.build();
+    }
+
+    private static boolean hasStatus(Row row, int index, int statusId) {
+        return statusId == ANY_STATUS || row.statusId(index) == statusId;
+    }
+
+    public void addFriend(int userId, int friendId, int statusId) {
+        outgoing.update(userId, row -> row.with(friendId, statusId));
+        incoming.update(friendId, row -> row.with(userId, statusId));
+    }
+
+    /**
+     * Меняет статус связи, если она есть.
+     */
+    public void updateStatus(int userId, int friendId, int statusId) {
+        outgoing.update(userId, row -> row.withStatus(friendId, statusId));
+        incoming.update(friendId, row -> row.withStatus(userId, statusId));
+    }
+
+    public void removeFriend(int userId, int friendId) {
+        outgoing.update(userId, row -> row.without(friendId));
+        incoming.update(friendId, row -> row.without(userId));
+    }
+
+    /**
+     * Связи одного направления: базовый CSR и изменённые поверх него строки.
+     */
+    private static final class Adjacency {
+        // Изменения строк выполняются параллельно (read lock), слияние в новый CSR - монопольно (write lock)
+        private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+        private volatile State state = new State(Csr.EMPTY, new ConcurrentHashMap<>());
+
+        private void reset(Csr csr) {
+            compactionLock.writeLock().lock();
+            try {
+                state = new State(csr, new ConcurrentHashMap<>());
+            } finally {
+                compactionLock.writeLock().unlock();
+            }
+        }
+
+        private Row row(int userId) {
+            State current = state;
+            Row row = current.overrides().get(userId);
+            return row != null ? row : current.base().row(userId);
+        }
+
+        private void update(int userId, UnaryOperator<Row> change) {
+            compactionLock.readLock().lock();
+            try {
+                State current = state;
+                current.overrides().compute(userId, (id, row) -> change.apply(row != null ? row : current.base().row(id)));
+            } finally {
+                compactionLock.readLock().unlock();
+            }
+            if (state.overrides().size() > compactionThreshold(state)) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            compactionLock.writeLock().lock();
+            try {
+                State current = state;
+                if (current.overrides().size() > compactionThreshold(current)) {
+                    state = new State(current.base().merge(current.overrides()), new ConcurrentHashMap<>());
+                }
+            } finally {
+                compactionLock.writeLock().unlock();
+            }
+        }
+
+        private static int compactionThreshold(State state) {
+            return Math.max(MIN_COMPACTION_THRESHOLD, state.base().userCount() / 8);
+        }
+    }
+
+    /**
+     * Связи одного пользователя: диапазон [from, to) в массивах ids и statuses.
+     */
+    public static final class Row {
+        private static final Row EMPTY = new Row(IntSets.EMPTY, IntSets.EMPTY, 0, 0);
+
+        private final int[] ids;
+        private final int[] statuses;
+        private final int from;
+        private final int to;
+
+        private Row(int[] ids, int[] statuses, int from, int to) {
+            this.ids = ids;
+            this.statuses = statuses;
+            this.from = from;
+            this.to = to;
+        }
+
+        public int size() {
+            return to - from;
+        }
+
+        public int friendId(int index) {
+            return ids[from + index];
+        }
+
+        public int statusId(int index) {
+            return statuses[from + index];
+        }
+
+        /**
+         * @return позиция друга в строке или отрицательное число, если связи нет
+         */
+        public int indexOf(int friendId) {
+            int pos = Arrays.binarySearch(ids, from, to, friendId);
+            return pos >= 0 ? pos - from : -1;
+        }
+
+        private Row with(int friendId, int statusId) {
+            int pos = Arrays.binarySearch(ids, from, to, friendId);
+            if (pos >= 0) {
+                return withStatus(friendId, statusId);
+            }
+            pos = -pos - 1;
+            int[] newIds = new int[size() + 1];
+            int[] newStatuses = new int[size() + 1];
+            int head = pos - from;
+            System.arraycopy(ids, from, newIds, 0, head);
+            System.arraycopy(statuses, from, newStatuses, 0, head);
+            newIds[head] = friendId;
+            newStatuses[head] = statusId;
+            System.arraycopy(ids, pos, newIds, head + 1, to - pos);
+            System.arraycopy(statuses, pos, newStatuses, head + 1, to - pos);
+            return new Row(newIds, newStatuses, 0, newIds.length);
+        }
+
+        private Row withStatus(int friendId, int statusId) {
+            int index = indexOf(friendId);
+            if (index < 0 || statusId(index) == statusId) {
+                return this;
+            }
+            int[] newIds = Arrays.copyOfRange(ids, from, to);
+            int[] newStatuses = Arrays.copyOfRange(statuses, from, to);
+            newStatuses[index] = statusId;
+            return new Row(newIds, newStatuses, 0, newIds.length);
+        }
+
+        private Row without(int friendId) {
+            int index = indexOf(friendId);
+            if (index < 0) {
+                return this;
+            }
+            int[] newIds = new int[size() - 1];
+            int[] newStatuses = new int[size() - 1];
+            System.arraycopy(ids, from, newIds, 0, index);
+            System.arraycopy(statuses, from, newStatuses, 0, index);
+            System.arraycopy(ids, from + index + 1, newIds, index, size() - index - 1);
+            System.arraycopy(statuses, from + index + 1, newStatuses, index, size() - index - 1);
+            return new Row(newIds, newStatuses, 0, newIds.length);
+        }
+    }
+
+    /**
+     * Неизменяемый граф в формате CSR: связи пользователя u занимают [offsets[u], offsets[u + 1]).
+     */
+    private static final class Csr {
+        private static final Csr EMPTY = new Csr(new int[]{0}, IntSets.EMPTY, IntSets.EMPTY);
+
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] statuses;
+
+        private Csr(int[] offsets, int[] targets, int[] statuses) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.statuses = statuses;
+        }
+
+        private int userCount() {
+            return offsets.length - 1;
+        }
+
+        private Row row(int userId) {
+            if (userId < 0 || userId >= userCount() || offsets[userId] == offsets[userId + 1]) {
+                return Row.EMPTY;
+            }
+            return new Row(targets, statuses, offsets[userId], offsets[userId + 1]);
+        }
+
+        /**
+         * Строит CSR с развёрнутыми связями сортировкой подсчётом: строки обходятся по возрастанию
+         * пользователя, поэтому внутри каждой новой строки идентификаторы тоже оказываются отсортированы.
+         */
+        private Csr transpose() {
+            int maxTargetId = -1;
+            for (int target : targets) {
+                maxTargetId = Math.max(maxTargetId, target);
+            }
+            int[] newOffsets = new int[maxTargetId + 2];
+            for (int target : targets) {
+                newOffsets[target + 1]++;
+            }
+            for (int i = 1; i < newOffsets.length; i++) {
+                newOffsets[i] += newOffsets[i - 1];
+            }
+            int[] positions = Arrays.copyOf(newOffsets, newOffsets.length - 1);
+            int[] newTargets = new int[targets.length];
+            int[] newStatuses = new int[targets.length];
+            for (int userId = 0; userId < userCount(); userId++) {
+                for (int i = offsets[userId]; i < offsets[userId + 1]; i++) {
+                    int pos = positions[targets[i]]++;
+                    newTargets[pos] = userId;
+                    newStatuses[pos] = statuses[i];
+                }
+            }
+            return new Csr(newOffsets, newTargets, newStatuses);
+        }
+
+        /**
+         * Строит новый CSR с учётом изменённых строк.
+         */
+        private Csr merge(Map<Integer, Row> overrides) {
+            int maxUserId = userCount() - 1;
+            for (int userId : overrides.keySet()) {
+                maxUserId = Math.max(maxUserId, userId);
+            }
+            CsrBuilder builder = new CsrBuilder();
+            for (int userId = 0; userId <= maxUserId; userId++) {
+                Row row = overrides.getOrDefault(userId, row(userId));
+                for (int i = 0; i < row.size(); i++) {
+                    builder.add(userId, row.friendId(i), row.statusId(i));
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Построение CSR из связей, поступающих упорядоченными по (user_id, friend_id).
+     */
+    private static final class CsrBuilder {
+        private final IntSets.Builder offsets = new IntSets.Builder();
+        private final IntSets.Builder targets = new IntSets.Builder();
+        private final IntSets.Builder statuses = new IntSets.Builder();
+
+        private void add(int userId, int friendId, int statusId) {
+            // Открываем строки всех пользователей до userId включительно, в том числе пустые
+            while (offsets.size() <= userId) {
+                offsets.add(targets.size());
+            }
+            targets.add(friendId);
+            statuses.add(statusId);
+        }
+
+        private Csr build() {
+            offsets.add(targets.size());
+            return new Csr(offsets.build(), targets.build(), statuses.build());
+        }
+    }
+
+    /**
+     * Результат поиска цепочки.
+     *
+     * @param userIds   пользователи цепочки от начального до конечного; пуст, если цепочка не найдена
+     * @param truncated поиск прерван из-за исчерпания бюджета посещений или таймаута
+     */
+    public record PathResult(List<Integer> userIds, boolean truncated) {
+    }
+
+    private record State(Csr base, ConcurrentHashMap<Integer, Row> overrides) {
+    }
+}
@@ -1,19 +1,26 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.FriendRepository;
-import ru.yandex.practicum.filmorate.repository.FriendshipStatusRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,7 +29,20 @@ import java.util.stream.Collectors;
 public class FriendService {
     private final FriendRepository friendRepository;
     private final UserRepository userRepository;
-    private final FriendshipStatusRepository statusRepository;
+    private final ReferenceDataCache referenceData;
+    private final FriendGraph friendGraph;
+
+    @Value("${filmorate.friends.suggestions.fan-out-cap:500}")
+    private int suggestionsFanOutCap;
+
+    @Value("${filmorate.friends.path.max-depth:6}")
+    private int pathMaxDepth;
+
+    @Value("${filmorate.friends.path.visit-budget:100000}")
+    private int pathVisitBudget;
+
+    @Value("${filmorate.friends.path.timeout:PT0.2S}")
+    private Duration pathTimeout;
 
     @Transactional
     public void addFriend(Integer userId, Integer friendId) {
@@ -57,17 +77,16 @@ public class FriendService {
     }
 
     private String getStatusName(int statusId) {
-        return statusRepository.findById(statusId)
+        return referenceData.findStatus(statusId)
                 .orElseThrow(() -> new IllegalStateException("Status not found: " + statusId))
                 .getName();
     }
 
     private void createFriendshipRequest(Integer userId, Integer friendId) {
-        Integer pendingStatusId = statusRepository.findByName("PENDING")
-                .orElseThrow(() -> new IllegalStateException("PENDING status not found"))
-                .getId();
+        Integer pendingStatusId = referenceData.getStatusByName("PENDING").getId();
 
         friendRepository.addFriend(userId, friendId, pendingStatusId);
+        TransactionHooks.afterCommit(() -> friendGraph.addFriend(userId, friendId, pendingStatusId));
     }
 
     @Transactional
@@ -79,18 +98,103 @@ public class FriendService {
             throw new ValidationException("No pending friendship request found");
         }
 
-        Integer confirmedStatusId = statusRepository.findByName("CONFIRMED")
-                .orElseThrow(() -> new IllegalStateException("CONFIRMED status not found"))
-                .getId();
+        Integer confirmedStatusId = referenceData.getStatusByName("CONFIRMED").getId();
 
         friendRepository.updateFriendshipStatus(friendId, userId, confirmedStatusId);
         friendRepository.updateFriendshipStatus(userId, friendId, confirmedStatusId);
+        TransactionHooks.afterCommit(() -> {
+            friendGraph.updateStatus(friendId, userId, confirmedStatusId);
+            friendGraph.updateStatus(userId, friendId, confirmedStatusId);
+        });
+    }
+
+    /**
+     * Подтверждает несколько входящих заявок в друзья в одной транзакции.
+     *
+     * @param userId       идентификатор получателя заявок
+     * @param requesterIds идентификаторы отправителей
+     * @return результат по каждому отправителю в порядке входного списка
+     * @throws NotFoundException   если получатель не найден
+     * @throws ValidationException если список пуст или длиннее {@value PageCursor#MAX_LIMIT}
+     */
+    @Transactional
+    public BulkResult confirmRequests(Integer userId, List<Integer> requesterIds) {
+        Integer confirmedStatusId = getStatusId("CONFIRMED");
+        List<Integer> pending = selectPendingRequests(userId, requesterIds);
+        // Заявка могла быть отозвана или обработана параллельно после выборки
+        Set<Integer> confirmedIds = friendRepository.confirmRequests(userId, pending, confirmedStatusId);
+        List<Integer> confirmed = pending.stream().filter(confirmedIds::contains).toList();
+
+        TransactionHooks.afterCommit(() -> confirmed.forEach(requesterId -> {
+            friendGraph.updateStatus(requesterId, userId, confirmedStatusId);
+            friendGraph.updateStatus(userId, requesterId, confirmedStatusId);
+        }));
+        log.info("User {} confirmed {} friend requests", userId, confirmed.size());
+        return toBulkResult(requesterIds, confirmed);
+    }
+
+    /**
+     * Отклоняет несколько входящих заявок в друзья в одной транзакции.
+     *
+     * @param userId       идентификатор получателя заявок
+     * @param requesterIds идентификаторы отправителей
+     * @return результат по каждому отправителю в порядке входного списка
+     * @throws NotFoundException   если получатель не найден
+     * @throws ValidationException если список пуст или длиннее {@value PageCursor#MAX_LIMIT}
+     */
+    @Transactional
+    public BulkResult declineRequests(Integer userId, List<Integer> requesterIds) {
+        List<Integer> pending = selectPendingRequests(userId, requesterIds);
+        Set<Integer> declinedIds = friendRepository.declineRequests(userId, pending);
+        List<Integer> declined = pending.stream().filter(declinedIds::contains).toList();
+
+        TransactionHooks.afterCommit(() -> declined.forEach(requesterId -> friendGraph.removeFriend(requesterId, userId)));
+        log.info("User {} declined {} friend requests", userId, declined.size());
+        return toBulkResult(requesterIds, declined);
+    }
+
+    /**
+     * Проверяет список отправителей и одним запросом отбирает тех, чьи заявки ожидают подтверждения.
+     *
+     * @return отправители с ожидающими заявками без повторов, в порядке входного списка
+     */
+    private List<Integer> selectPendingRequests(Integer userId, List<Integer> requesterIds) {
+        if (requesterIds == null || requesterIds.isEmpty()) {
+            throw new ValidationException("Requester ids must not be empty");
+        }
+        if (requesterIds.size() > PageCursor.MAX_LIMIT) {
+            throw new ValidationException("No more than " + PageCursor.MAX_LIMIT + " requests can be processed at once");
+        }
+        requireUsersExist(userId);
+
+        Set<Integer> distinctIds = requesterIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<Integer> pending = friendRepository.findPendingRequesters(userId, distinctIds);
+        return distinctIds.stream().filter(pending::contains).toList();
+    }
+
+    private static BulkResult toBulkResult(List<Integer> requesterIds, List<Integer> processed) {
+        BulkResult result = new BulkResult();
+        Set<Integer> remaining = new HashSet<>(processed);
+        for (int i = 0; i < requesterIds.size(); i++) {
+            Integer requesterId = requesterIds.get(i);
+            if (requesterId == null) {
+                result.addFailure(i, null, "Requester id must not be null");
+            } else if (remaining.remove(requesterId)) {
+                result.addSuccess(i, requesterId);
+            } else if (processed.contains(requesterId)) {
+                result.addFailure(i, requesterId, "Duplicate requester id");
+            } else {
+                result.addFailure(i, requesterId, "No pending friendship request found");
+            }
+        }
+        return result;
     }
 
     @Transactional(readOnly = true)
     public List<User> getFriends(Integer userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found: " + userId));
+        requireUsersExist(userId);
 
         // Получаем только подтверждённых друзей
         return friendRepository.getFriendsByUserId(userId).stream()
@@ -103,34 +207,141 @@ public class FriendService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Получает порцию друзей пользователя (keyset-пагинация по идентификатору друга).
+     *
+     * @param userId  идентификатор пользователя
+     * @param afterId идентификатор последнего друга предыдущей порции (0 - с начала)
+     * @param limit   размер порции
+     * @return друзья с id больше afterId в порядке возрастания id
+     * @throws ValidationException если afterId отрицателен или limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public List<User> getFriendsPage(Integer userId, int afterId, int limit) {
+        validatePage(afterId, limit);
+        requireUsersExist(userId);
+        return friendRepository.findFriendsPage(userId, afterId, limit);
+    }
+
+    /**
+     * Получает порцию входящих заявок в друзья, ожидающих подтверждения пользователем.
+     *
+     * @param userId  идентификатор получателя заявок
+     * @param afterId идентификатор последнего отправителя предыдущей порции (0 - с начала)
+     * @param limit   размер порции
+     * @return отправители заявок в порядке возрастания id
+     * @throws ValidationException если afterId отрицателен или limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public List<User> getIncomingRequests(Integer userId, int afterId, int limit) {
+        validatePage(afterId, limit);
+        requireUsersExist(userId);
+        return friendRepository.findIncomingRequests(userId, afterId, limit);
+    }
+
+    private static void validatePage(int afterId, int limit) {
+        PageCursor.validateLimit(limit);
+        if (afterId < 0) {
+            throw new ValidationException("afterId must not be negative");
+        }
+    }
+
+    /**
+     * Возвращает количество друзей пользователя по поддерживаемому при записи счётчику.
+     *
+     * @throws NotFoundException если пользователь не найден
+     */
+    public int getFriendsCount(Integer userId) {
+        return userRepository.getFriendsCount(userId)
+                .orElseThrow(() -> new NotFoundException("User not found with id: " + userId));
+    }
+
     @Transactional
     public void removeFriend(Integer userId, Integer friendId) {
         validateUsers(userId, friendId);
         friendRepository.removeFriend(userId, friendId);
+        TransactionHooks.afterCommit(() -> friendGraph.removeFriend(userId, friendId));
     }
 
+    /**
+     * Находит общих друзей двух пользователей по in-memory графу дружбы;
+     * из базы загружаются только найденные пользователи.
+     */
     @Transactional(readOnly = true)
     public List<User> getCommonFriends(Integer userId, Integer otherId) {
         validateUsers(userId, otherId);
-        Integer confirmedStatusId = getStatusId("CONFIRMED");
-        return friendRepository.findCommonFriends(userId, otherId);
+        int[] commonIds = friendGraph.commonFriends(userId, otherId);
+        // Общие друзья отдаются без их собственных списков друзей - достаточно одного запроса к users
+        return userRepository.findRowsByIds(Arrays.stream(commonIds).boxed().toList());
+    }
+
+    /**
+     * Предлагает пользователю новых друзей среди друзей его друзей.
+     *
+     * @param userId идентификатор пользователя
+     * @param limit  максимальное количество предложений
+     * @return пользователи, отсортированные по убыванию числа общих друзей
+     * @throws NotFoundException если пользователь не найден
+     */
+    @Transactional(readOnly = true)
+    public List<User> getFriendSuggestions(Integer userId, int limit) {
+        PageCursor.validateLimit(limit);
+        requireUsersExist(userId);
+        return userRepository.findByIds(friendGraph.suggestFriends(userId, limit, suggestionsFanOutCap,
+                getStatusId("CONFIRMED")));
+    }
+
+    /**
+     * Находит кратчайшую цепочку подтверждённых дружб между двумя пользователями по in-memory графу.
+     *
+     * @param userId   начальный пользователь
+     * @param otherId  конечный пользователь
+     * @param maxDepth максимальная длина цепочки; если не задана, используется предельная из настроек
+     * @return пользователи цепочки от userId до otherId включительно
+     * @throws NotFoundException   если пользователь не найден или цепочка не найдена в пределах ограничений
+     * @throws ValidationException если maxDepth вне диапазона [1, filmorate.friends.path.max-depth]
+     */
+    @Transactional(readOnly = true)
+    public List<User> getFriendshipPath(Integer userId, Integer otherId, Integer maxDepth) {
+        int depth = maxDepth != null ? maxDepth : pathMaxDepth;
+        if (depth < 1 || depth > pathMaxDepth) {
+            throw new ValidationException("maxDepth must be between 1 and " + pathMaxDepth);
+        }
+        requireUsersExist(userId, otherId);
+
+        FriendGraph.PathResult result = friendGraph.shortestPath(userId, otherId, getStatusId("CONFIRMED"),
+                depth, pathVisitBudget, pathTimeout);
+        if (result.userIds().isEmpty()) {
+            if (result.truncated()) {
+                log.warn("Friendship path search {} -> {} stopped by visit budget or timeout", userId, otherId);
+                throw new NotFoundException("Friendship path not found within search limits: "
+                        + userId + " -> " + otherId);
+            }
+            throw new NotFoundException("No friendship path within " + depth + " hops: " + userId + " -> " + otherId);
+        }
+        return userRepository.findByIds(result.userIds());
     }
 
     private void validateUsers(Integer userId, Integer friendId) {
         if (userId.equals(friendId)) {
             throw new IllegalArgumentException("User cannot add themselves as friend");
         }
+        requireUsersExist(userId, friendId);
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found with id: " + userId));
-
-        User friend = userRepository.findById(friendId)
-                .orElseThrow(() -> new NotFoundException("User not found with id: " + friendId));
+    /**
+     * Проверяет существование пользователей одним запросом, не загружая их данные и связи.
+     *
+     * @throws NotFoundException с идентификатором первого отсутствующего пользователя
+     */
+    private void requireUsersExist(Integer... ids) {
+        Set<Integer> missing = userRepository.findMissingIds(Arrays.asList(ids));
+        if (!missing.isEmpty()) {
+            throw new NotFoundException("User not found with id: " + missing.iterator().next());
+        }
     }
 
     private Integer getStatusId(String statusName) {
-        return statusRepository.findByName(statusName)
-                .orElseThrow(() -> new IllegalStateException(statusName + " status not found"))
-                .getId();
+        return referenceData.getStatusByName(statusName).getId();
     }
 }
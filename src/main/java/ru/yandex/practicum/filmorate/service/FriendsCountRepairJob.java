@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+
+/**
+ * Периодическая сверка денормализованных счётчиков друзей (users.friends_count) с таблицей friendship.
+ * Первый запуск при старте приложения выполняет backfill для баз, созданных до появления счётчика.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendsCountRepairJob {
+    private final FriendRepository friendRepository;
+
+    /**
+     * Пересчитывает счётчики друзей и логирует количество исправленных пользователей.
+     *
+     * @return количество пользователей, у которых счётчик был исправлен
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${filmorate.friends-count.repair-interval:PT1H}")
+    public int repair() {
+        int fixed = friendRepository.recalculateFriendsCounts();
+        if (fixed > 0) {
+            log.warn("Friends counters repaired for {} users", fixed);
+        } else {
+            log.debug("Friends counters are consistent");
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.FriendshipImportResult;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт графа дружбы (например, при миграции из другой системы).
+ * В отличие от {@link FriendService#addFriend}, связь не проверяется запросами к базе: идентификаторы
+ * пользователей сверяются с загруженным один раз отсортированным массивом, а связи пишутся пакетами
+ * по filmorate.bulk.chunk-size, каждый пакет - в своей транзакции. Счётчики друзей и in-memory граф
+ * пересчитываются один раз после импорта.
+ * Как и в {@link FriendService}, у пары пользователей может быть только одна связь: связь, обратная уже
+ * существующей или встреченной ранее в файле, и повтор связи в файле отклоняются.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FriendshipImportService {
+    private static final String DEFAULT_STATUS = "CONFIRMED";
+    private static final char BOM = '\uFEFF';
+
+    private final UserRepository userRepository;
+    private final FriendRepository friendRepository;
+    private final ReferenceDataCache referenceData;
+    private final FriendGraph friendGraph;
+
+    @Value("${filmorate.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${filmorate.friends.import.max-reported-rejections:100}")
+    private int maxReportedRejections;
+
+    /**
+     * Импортирует связи из CSV: по одной связи в строке в формате user_id,friend_id[,status].
+     * Пустые строки и заголовок (первая строка с колонками user_id,friend_id) пропускаются, BOM в начале
+     * файла игнорируется. Связи с несуществующими пользователями, связи с самим собой, повторные и обратные
+     * связи и некорректные строки отклоняются, не прерывая импорт. Уже существующая связь получает статус из файла.
+     *
+     * @param body поток с CSV в кодировке UTF-8
+     * @return количество записанных и отклонённых связей, пропускная способность и примеры отклонений
+     */
+    public FriendshipImportResult importCsv(InputStream body) throws IOException {
+        long started = System.nanoTime();
+        IntSets.Builder idsBuilder = new IntSets.Builder();
+        userRepository.forEachId(idsBuilder::add);
+        int[] userIds = idsBuilder.build();
+        Map<String, Integer> statusIds = referenceData.getStatuses().stream()
+                .collect(Collectors.toMap(FriendshipStatus::getName, FriendshipStatus::getId));
+
+        FriendshipImportResult result = new FriendshipImportResult();
+        Chunk chunk = new Chunk(chunkSize);
+        Set<Long> pairs = new HashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BOM) {
+                line = line.substring(1);
+            }
+            line = line.strip();
+            if (line.isEmpty() || (lineNumber == 1 && isHeader(line))) {
+                continue;
+            }
+            String error = parseEdge(line, lineNumber, userIds, statusIds, pairs, chunk);
+            if (error != null) {
+                result.addRejection(lineNumber, error, maxReportedRejections);
+            } else if (chunk.size == chunkSize) {
+                flush(chunk, result);
+            }
+        }
+        flush(chunk, result);
+
+        if (result.getImported() > 0) {
+            friendRepository.recalculateFriendsCounts();
+            friendGraph.rebuild();
+        }
+        long durationNanos = System.nanoTime() - started;
+        result.setDurationMs(durationNanos / 1_000_000);
+        long imported = result.getImported();
+        result.setEdgesPerSecond(durationNanos > 0 ? imported * 1_000_000_000 / durationNanos : imported);
+        log.info("Friendship import: {} edges imported, {} rejected in {} ms ({} edges/s)",
+                result.getImported(), result.getRejected(), result.getDurationMs(), result.getEdgesPerSecond());
+        return result;
+    }
+
+    private static boolean isHeader(String line) {
+        String[] fields = line.split(",", -1);
+        return fields.length >= 2
+                && fields[0].strip().equalsIgnoreCase("user_id")
+                && fields[1].strip().equalsIgnoreCase("friend_id");
+    }
+
+    /**
+     * Разбирает строку и добавляет связь в пакет.
+     *
+     * @param pairs пары пользователей, связи которых уже приняты из файла
+     * @return описание ошибки или null, если связь принята
+     */
+    private String parseEdge(String line, int lineNumber, int[] userIds, Map<String, Integer> statusIds,
+                             Set<Long> pairs, Chunk chunk) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 2 || fields.length > 3) {
+            return "Expected user_id,friend_id[,status]: " + line;
+        }
+        int userId;
+        int friendId;
+        try {
+            userId = Integer.parseInt(fields[0].strip());
+            friendId = Integer.parseInt(fields[1].strip());
+        } catch (NumberFormatException e) {
+            return "Invalid user id: " + line;
+        }
+        if (userId == friendId) {
+            return "User cannot add themselves as friend: " + userId;
+        }
+        if (!IntSets.contains(userIds, userId)) {
+            return "User not found with id: " + userId;
+        }
+        if (!IntSets.contains(userIds, friendId)) {
+            return "User not found with id: " + friendId;
+        }
+        String statusName = fields.length == 3 ? fields[2].strip().toUpperCase(Locale.ROOT) : DEFAULT_STATUS;
+        Integer statusId = statusIds.get(statusName);
+        if (statusId == null) {
+            return "Unknown friendship status: " + statusName;
+        }
+        // Одна связь на пару, как в FriendService#addFriend: повтор и обратная связь не принимаются
+        if (friendGraph.hasEdge(friendId, userId)) {
+            return "Friendship relation already exists: " + friendId + " and " + userId;
+        }
+        if (!pairs.add(pairKey(userId, friendId))) {
+            return "Duplicate friendship in import: " + userId + " and " + friendId;
+        }
+        chunk.add(userId, friendId, statusId, lineNumber);
+        return null;
+    }
+
+    private static long pairKey(int userId, int friendId) {
+        return ((long) Math.min(userId, friendId) << 32) | (Math.max(userId, friendId) & 0xFFFFFFFFL);
+    }
+
+    private void flush(Chunk chunk, FriendshipImportResult result) {
+        if (chunk.size == 0) {
+            return;
+        }
+        try {
+            friendRepository.mergeAll(chunk.userIds, chunk.friendIds, chunk.statusIds, chunk.size);
+            result.setImported(result.getImported() + chunk.size);
+        } catch (DataAccessException e) {
+            // Пакет откатился целиком (например, пользователя удалили во время импорта) - пишем связи по одной
+            for (int i = 0; i < chunk.size; i++) {
+                try {
+                    friendRepository.mergeAll(new int[]{chunk.userIds[i]}, new int[]{chunk.friendIds[i]},
+                            new int[]{chunk.statusIds[i]}, 1);
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException ex) {
+                    result.addRejection(chunk.lines[i], ex.getMostSpecificCause().getMessage(), maxReportedRejections);
+                }
+            }
+        }
+        chunk.size = 0;
+    }
+
+    /**
+     * Буфер связей одного пакета в примитивных массивах.
+     */
+    private static final class Chunk {
+        private final int[] userIds;
+        private final int[] friendIds;
+        private final int[] statusIds;
+        private final int[] lines;
+        private int size;
+
+        private Chunk(int capacity) {
+            userIds = new int[capacity];
+            friendIds = new int[capacity];
+            statusIds = new int[capacity];
+            lines = new int[capacity];
+        }
+
+        private void add(int userId, int friendId, int statusId, int lineNumber) {
+            userIds[size] = userId;
+            friendIds[size] = friendId;
+            statusIds[size] = statusId;
+            lines[size] = lineNumber;
+            size++;
+        }
+    }
+}
@@ -5,18 +5,20 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
 
 import java.util.List;
 
 /**
  * Сервисный класс для работы с жанрами фильмов.
  * Обеспечивает доступ к информации о жанрах.
- * Взаимодействует с репозиторием {@link GenreRepository} для доступа к данным.
+ * Справочник жанров читается из {@link ReferenceDataCache}, жанры фильмов - из {@link GenreRepository}.
  */
 @Service
 @RequiredArgsConstructor
 public class GenreService {
     private final GenreRepository genreRepository;
+    private final ReferenceDataCache referenceData;
 
     /**
      * Получает список всех жанров.
@@ -24,7 +26,7 @@ public class GenreService {
      * @return список объектов {@link Genre}
      */
     public List<Genre> findAll() {
-        return genreRepository.findAll();
+        return referenceData.getGenres();
     }
 
     /**
@@ -35,7 +37,7 @@ public class GenreService {
      * @throws NotFoundException если жанр с указанным id не найден
      */
     public Genre findById(Integer id) {
-        return genreRepository.findById(id)
+        return referenceData.findGenre(id)
                 .orElseThrow(() -> new NotFoundException("Genre not found with id: " + id));
     }
 
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица int -> int с открытой адресацией и линейным пробированием.
+ * Ключи и значения хранятся в массивах int без упаковки в Integer, поэтому таблица подходит
+ * для обходов графа, где на один запрос приходятся десятки тысяч вставок.
+ * Значение {@link Integer#MIN_VALUE} зарезервировано под пустую ячейку и не может быть ключом.
+ */
+final class IntIntHashMap {
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+
+    boolean containsKey(int key) {
+        return keys[slot(key)] != FREE;
+    }
+
+    /**
+     * @return значение по ключу или missingValue, если ключа нет
+     */
+    int get(int key, int missingValue) {
+        int slot = slot(key);
+        return keys[slot] != FREE ? values[slot] : missingValue;
+    }
+
+    void put(int key, int value) {
+        int slot = slot(key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        // Поддерживаем заполнение не выше 1/2, чтобы цепочки пробирования оставались короткими
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return ячейка с ключом или первая свободная ячейка его цепочки
+     */
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
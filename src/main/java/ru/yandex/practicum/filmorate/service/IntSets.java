@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Операции над множествами идентификаторов, представленными отсортированными массивами int без повторов.
+ * Массивы считаются неизменяемыми: изменяющие операции возвращают новый массив (copy-on-write),
+ * поэтому их можно безопасно читать из нескольких потоков без блокировок.
+ */
+final class IntSets {
+    static final int[] EMPTY = new int[0];
+
+    private IntSets() {
+    }
+
+    static boolean contains(int[] set, int value) {
+        return Arrays.binarySearch(set, value) >= 0;
+    }
+
+    /**
+     * @return множество с добавленным значением или тот же массив, если значение уже есть
+     */
+    static int[] insert(int[] set, int value) {
+        int pos = Arrays.binarySearch(set, value);
+        if (pos >= 0) {
+            return set;
+        }
+        pos = -pos - 1;
+        int[] result = new int[set.length + 1];
+        System.arraycopy(set, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(set, pos, result, pos + 1, set.length - pos);
+        return result;
+    }
+
+    /**
+     * @return множество без значения или тот же массив, если значения не было
+     */
+    static int[] remove(int[] set, int value) {
+        int pos = Arrays.binarySearch(set, value);
+        if (pos < 0) {
+            return set;
+        }
+        int[] result = new int[set.length - 1];
+        System.arraycopy(set, 0, result, 0, pos);
+        System.arraycopy(set, pos + 1, result, pos, set.length - pos - 1);
+        return result;
+    }
+
+    /**
+     * Пересечение диапазонов [aFrom, aTo) и [bFrom, bTo) двух отсортированных массивов слиянием за O(n + m).
+     *
+     * @return отсортированный массив общих элементов
+     */
+    static int[] intersect(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int[] result = new int[Math.min(aTo - aFrom, bTo - bFrom)];
+        int size = 0;
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Передаёт обработчику по возрастанию элементы множества a, отсутствующие в множестве b.
+     */
+    static void forEachDifference(int[] a, int[] b, IntConsumer action) {
+        int j = 0;
+        for (int value : a) {
+            while (j < b.length && b[j] < value) {
+                j++;
+            }
+            if (j == b.length || b[j] != value) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Растущий массив для построения множества из значений, поступающих по возрастанию,
+     * или произвольного массива int неизвестной заранее длины.
+     */
+    static final class Builder {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] build() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
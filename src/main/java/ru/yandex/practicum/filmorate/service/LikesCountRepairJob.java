@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+/**
+ * Периодическая сверка денормализованных счётчиков лайков (films.likes_count) с таблицей likes.
+ * Первый запуск при старте приложения выполняет backfill для баз, созданных до появления счётчика.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikesCountRepairJob {
+    private final FilmRepository filmRepository;
+
+    /**
+     * Пересчитывает счётчики лайков и логирует количество исправленных фильмов.
+     *
+     * @return количество фильмов, у которых счётчик был исправлен
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${filmorate.likes-count.repair-interval:PT1H}")
+    public int repair() {
+        int fixed = filmRepository.recalculateLikesCounts();
+        if (fixed > 0) {
+            log.warn("Likes counters repaired for {} films", fixed);
+        } else {
+            log.debug("Likes counters are consistent");
+        }
+        return fixed;
+    }
+}
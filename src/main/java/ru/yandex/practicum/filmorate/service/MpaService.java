@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.repository.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -12,19 +12,19 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaRepository mpaRepository;
+    private final ReferenceDataCache referenceData;
 
     public List<Mpa> findAll() {
-        return mpaRepository.findAll();
+        return referenceData.getMpaRatings();
     }
 
     public Mpa findById(Integer id) {
-        return mpaRepository.findById(id)
+        return referenceData.findMpa(id)
                 .orElseThrow(() -> new NotFoundException("MPA rating with id " + id + " not found. Available ratings: " + getAllRatings()));
     }
 
     private String getAllRatings() {
-        return mpaRepository.findAll().stream()
+        return referenceData.getMpaRatings().stream()
                 .map(m -> m.getId() + ":" + m.getCode())
                 .collect(Collectors.joining(", "));
     }
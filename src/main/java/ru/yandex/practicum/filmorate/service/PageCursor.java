@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Кодирование и разбор непрозрачных курсоров для keyset-пагинации.
+ * Курсор содержит идентификатор последнего элемента предыдущей страницы.
+ */
+public final class PageCursor {
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String PREFIX = "id:";
+
+    private PageCursor() {
+    }
+
+    /**
+     * Кодирует идентификатор последнего элемента страницы в курсор.
+     *
+     * @param lastId идентификатор последнего элемента
+     * @return непрозрачный курсор
+     */
+    public static String encode(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор.
+     *
+     * @param cursor курсор или null для первой страницы
+     * @return идентификатор, после которого начинается страница (0 для первой страницы)
+     * @throws ValidationException если курсор некорректен
+     */
+    public static int decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new ValidationException("Invalid cursor: " + cursor);
+            }
+            return Integer.parseInt(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Проверяет размер страницы.
+     *
+     * @param limit запрошенный размер страницы
+     * @throws ValidationException если размер вне диапазона 1..{@value #MAX_LIMIT}
+     */
+    public static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    /**
+     * Формирует страницу из выборки размером limit + 1: лишний элемент означает наличие следующей страницы.
+     *
+     * @param rows  выборка, упорядоченная по идентификатору
+     * @param limit размер страницы
+     * @param idOf  функция получения идентификатора элемента
+     * @return страница с курсором следующей страницы
+     */
+    public static <T> Page<T> toPage(List<T> rows, int limit, Function<T, Integer> idOf) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(items, encode(idOf.apply(items.get(limit - 1))));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Сервис рекомендаций фильмов на основе коллаборативной фильтрации.
+ * Находит пользователей с наибольшим пересечением лайков с целевым пользователем
+ * и предлагает фильмы, которые понравились им, но ещё не оценены целевым пользователем.
+ * Все вычисления выполняются по {@link FilmLikesMatrix}, в базу запрашиваются только итоговые фильмы.
+ * Перебор кандидатов в соседи ограничен бюджетом filmorate.recommendations.candidate-budget:
+ * фильмы обходятся от наименее популярных, а у фильмов, не уместившихся в бюджет, берётся только
+ * часть лайкнувших. Поэтому один лайк блокбастеру не делает запрос пропорциональным числу пользователей.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+    private static final Comparator<Neighbour> BY_OVERLAP = Comparator
+            .comparingInt(Neighbour::overlap)
+            .thenComparing(Neighbour::userId, Comparator.reverseOrder());
+
+    private final FilmLikesMatrix likesMatrix;
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+
+    @Value("${filmorate.recommendations.neighbours:20}")
+    private int maxNeighbours;
+
+    @Value("${filmorate.recommendations.candidate-budget:10000}")
+    private int candidateBudget = 10_000;
+
+    /**
+     * Получает рекомендованные пользователю фильмы.
+     *
+     * @param userId идентификатор пользователя
+     * @param limit  максимальное количество фильмов
+     * @return список объектов {@link Film}, отсортированных по убыванию оценки
+     * @throws NotFoundException   если пользователь не найден
+     * @throws ValidationException если limit вне диапазона 1..{@value PageCursor#MAX_LIMIT}
+     */
+    public List<Film> getRecommendations(int userId, int limit) {
+        PageCursor.validateLimit(limit);
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("User not found with id: " + userId);
+        }
+        return filmRepository.findByIds(recommendFilmIds(userId, limit));
+    }
+
+    List<Integer> recommendFilmIds(int userId, int limit) {
+        int[] liked = likesMatrix.filmsOf(userId);
+        if (liked.length == 0) {
+            return List.of();
+        }
+
+        // Соседями могут быть только пользователи, лайкнувшие хотя бы один из тех же фильмов.
+        // Редкие фильмы точнее характеризуют вкус и дешевле в обходе, поэтому идут первыми
+        List<int[]> likersByFilm = new ArrayList<>(liked.length);
+        for (int filmId : liked) {
+            likersByFilm.add(likesMatrix.likersOf(filmId));
+        }
+        likersByFilm.sort(Comparator.comparingInt(likers -> likers.length));
+
+        // Пересечение с кандидатом - количество общих фильмов, через которые он найден
+        Map<Integer, Integer> overlaps = new HashMap<>();
+        int budget = candidateBudget;
+        for (int[] likers : likersByFilm) {
+            for (int i = 0; i < likers.length && budget > 0; i++, budget--) {
+                if (likers[i] != userId) {
+                    overlaps.merge(likers[i], 1, Integer::sum);
+                }
+            }
+            if (budget == 0) {
+                break;
+            }
+        }
+
+        // Оставляем maxNeighbours пользователей с наибольшим пересечением (min-heap по пересечению)
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(BY_OVERLAP);
+        overlaps.forEach((otherId, overlap) -> {
+            int[] films = likesMatrix.filmsOf(otherId);
+            if (films.length > overlap) {
+                nearest.add(new Neighbour(otherId, overlap, films));
+                if (nearest.size() > maxNeighbours) {
+                    nearest.poll();
+                }
+            }
+        });
+
+        // Оценка фильма - сумма пересечений соседей, которым он понравился
+        Map<Integer, Long> scores = new HashMap<>();
+        for (Neighbour neighbour : nearest) {
+            IntSets.forEachDifference(neighbour.films(), liked,
+                    filmId -> scores.merge(filmId, (long) neighbour.overlap(), Long::sum));
+        }
+
+        List<Map.Entry<Integer, Long>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream()
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private record Neighbour(int userId, int overlap, int[] films) {
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных запросов на чтение (single-flight).
+ * Первый вызов с данным ключом выполняет загрузку, остальные, пришедшие до её завершения,
+ * ждут и получают тот же результат или то же исключение. Результат не кэшируется:
+ * следующий вызов после завершения загрузки снова идёт в базу.
+ * Все объединённые вызовы получают один и тот же объект результата без копирования, поэтому
+ * вызывающий код не должен его изменять - только отдавать клиенту.
+ * Метрика filmorate.coalescing.calls с тегами operation и role (leader/follower) показывает
+ * по каждой операции, какая доля вызовов обошлась без собственного запроса к базе.
+ */
+@Component
+public class RequestCoalescer {
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Выполняет загрузку или присоединяется к уже выполняющейся с тем же ключом.
+     *
+     * @param operation название операции, используется как тег метрики
+     * @param args      аргументы операции; вызовы с равными аргументами объединяются
+     * @param loader    загрузка данных
+     * @return результат загрузки; общий для всех объединённых вызовов и не должен изменяться
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object args, Supplier<T> loader) {
+        Key key = new Key(operation, args);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            count(operation, "follower");
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        count(operation, "leader");
+        try {
+            T result = loader.get();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Любая ошибка загрузки, включая Error, должна освободить ожидающих
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void count(String operation, String role) {
+        meterRegistry.counter("filmorate.coalescing.calls", "operation", operation, "role", role).increment();
+    }
+
+    /**
+     * Извлекает исходное исключение загрузки, чтобы вызывающий получил то же исключение, что и лидер,
+     * а не CompletionException, которое обработчик ошибок превратил бы в 500.
+     */
+    static RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+
+    private record Key(String operation, Object args) {
+    }
+}
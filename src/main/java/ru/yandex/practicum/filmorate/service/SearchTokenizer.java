@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор русского и английского текста для поиска: разбиение на слова, приведение
+ * к нижнему регистру, замена "ё" на "е" и упрощённый стемминг отсечением типичных окончаний.
+ */
+final class SearchTokenizer {
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{Nd}]+");
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // Окончания упорядочены от длинных к коротким: отсекается самое длинное подходящее
+    private static final String[] RUSSIAN_ENDINGS = {
+            "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией", "иях", "иям",
+            "ой", "ей", "ий", "ый", "ая", "яя", "ое", "ее", "ые", "ие", "ом", "ем", "ам", "ям",
+            "ах", "ях", "ов", "ев", "ую", "юю", "ия", "ью",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    };
+    private static final String[] RUSSIAN_SOFT_ENDINGS = {"и", "ь", "й"};
+    private static final String[] ENGLISH_ENDINGS = {
+            "ing", "ed", "ly", "s"
+    };
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Приводит текст к нижнему регистру и заменяет "ё" на "е".
+     */
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    /**
+     * Разбивает текст на основы слов.
+     *
+     * @param text исходный текст, может быть null
+     * @return основы слов в порядке следования в тексте
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = WORD.matcher(normalize(text));
+        while (matcher.find()) {
+            tokens.add(stem(matcher.group()));
+        }
+        return tokens;
+    }
+
+    static String stem(String word) {
+        if (isCyrillic(word)) {
+            // история/истории -> истор, семья/семьи -> сем
+            return cutEnding(cutEnding(word, RUSSIAN_ENDINGS), RUSSIAN_SOFT_ENDINGS);
+        }
+        // movies/movie -> movi, stories/story -> stori, loved/love -> lov
+        String stem = cutEnding(word, ENGLISH_ENDINGS);
+        if (stem.length() > MIN_STEM_LENGTH && stem.endsWith("e")) {
+            stem = stem.substring(0, stem.length() - 1);
+        } else if (stem.length() >= MIN_STEM_LENGTH && stem.endsWith("y")) {
+            stem = stem.substring(0, stem.length() - 1) + "i";
+        }
+        return stem;
+    }
+
+    private static String cutEnding(String word, String[] endings) {
+        for (String ending : endings) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(String word) {
+        return Character.UnicodeBlock.of(word.charAt(0)) == Character.UnicodeBlock.CYRILLIC;
+    }
+}
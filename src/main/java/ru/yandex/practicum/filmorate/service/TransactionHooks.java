@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Отложенное обновление in-memory структур до успешного коммита транзакции.
+ */
+final class TransactionHooks {
+    private TransactionHooks() {
+    }
+
+    /**
+     * Выполняет действие после успешного коммита текущей транзакции, а вне транзакции - сразу.
+     * При откате действие не выполняется, поэтому in-memory структуры не расходятся с базой.
+     *
+     * @param action действие
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
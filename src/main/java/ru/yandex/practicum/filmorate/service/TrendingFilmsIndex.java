@@ -0,0 +1,271 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory счётчики лайков фильмов в скользящих окнах (24 часа и 7 дней).
+ * Для каждого фильма хранится кольцевой буфер часовых корзин; суммы по окнам поддерживаются
+ * в упорядоченных множествах, поэтому top-K трендовых фильмов получается за O(K).
+ * Счётчики строятся из таблицы likes при старте, обновляются сервисом после коммита
+ * и раз в минуту сдвигаются, чтобы устаревшие корзины выпадали из окон.
+ */
+@Slf4j
+@Component
+public class TrendingFilmsIndex {
+    private static final long BUCKET_MILLIS = Duration.ofHours(1).toMillis();
+    private static final Comparator<Entry> BY_LIKES = Comparator
+            .comparingLong(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    /**
+     * Поддерживаемые окна.
+     */
+    @Getter
+    public enum Window {
+        DAY("24h", 24),
+        WEEK("7d", 24 * 7);
+
+        private final String code;
+        private final int hours;
+
+        Window(String code, int hours) {
+            this.code = code;
+            this.hours = hours;
+        }
+
+        /**
+         * @param code обозначение окна ("24h" или "7d")
+         * @return окно
+         * @throws ValidationException если окно не поддерживается
+         */
+        public static Window parse(String code) {
+            return Arrays.stream(values())
+                    .filter(window -> window.code.equalsIgnoreCase(code))
+                    .findFirst()
+                    .orElseThrow(() -> new ValidationException("Unsupported window: " + code + ", expected 24h or 7d"));
+        }
+    }
+
+    private static final int BUCKETS = Window.WEEK.hours;
+
+    private final FilmRepository filmRepository;
+    private final Clock clock;
+    private final ConcurrentHashMap<Integer, FilmCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Window, ConcurrentSkipListSet<Entry>> rankings = new EnumMap<>(Window.class);
+
+    @Autowired
+    public TrendingFilmsIndex(FilmRepository filmRepository) {
+        this(filmRepository, Clock.systemUTC());
+    }
+
+    TrendingFilmsIndex(FilmRepository filmRepository, Clock clock) {
+        this.filmRepository = filmRepository;
+        this.clock = clock;
+        for (Window window : Window.values()) {
+            rankings.put(window, new ConcurrentSkipListSet<>(BY_LIKES));
+        }
+    }
+
+    /**
+     * Строит счётчики по лайкам за последние 7 дней.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        long now = currentHour();
+        counters.clear();
+        rankings.values().forEach(ConcurrentSkipListSet::clear);
+
+        Instant since = Instant.ofEpochMilli((now - BUCKETS + 1) * BUCKET_MILLIS);
+        int[] loaded = new int[1];
+        filmRepository.forEachLikeSince(since, (filmId, createdAt) -> {
+            counters.computeIfAbsent(filmId, id -> new FilmCounter()).put(hourOf(createdAt), 1, now);
+            loaded[0]++;
+        });
+        counters.forEach((filmId, counter) -> {
+            synchronized (counter) {
+                refresh(filmId, counter, now);
+            }
+        });
+        log.info("Trending counters rebuilt: {} likes for {} films", loaded[0], counters.size());
+    }
+
+    /**
+     * Сдвигает окна: лайки из устаревших корзин перестают учитываться.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void tick() {
+        long now = currentHour();
+        counters.forEach((filmId, counter) -> {
+            synchronized (counter) {
+                refresh(filmId, counter, now);
+                if (counter.isEmpty()) {
+                    counters.remove(filmId, counter);
+                }
+            }
+        });
+    }
+
+    /**
+     * Учитывает новый лайк.
+     *
+     * @param filmId    идентификатор фильма
+     * @param createdAt время постановки лайка
+     */
+    public void recordLike(int filmId, Instant createdAt) {
+        change(filmId, createdAt, 1);
+    }
+
+    /**
+     * Учитывает удаление лайка.
+     *
+     * @param filmId    идентификатор фильма
+     * @param createdAt время постановки удалённого лайка
+     */
+    public void removeLike(int filmId, Instant createdAt) {
+        change(filmId, createdAt, -1);
+    }
+
+    /**
+     * Удаляет счётчики фильма (при удалении фильма).
+     *
+     * @param filmId идентификатор фильма
+     */
+    public void removeFilm(int filmId) {
+        FilmCounter counter = counters.remove(filmId);
+        if (counter != null) {
+            synchronized (counter) {
+                for (Window window : Window.values()) {
+                    rankings.get(window).remove(new Entry(counter.totals[window.ordinal()], filmId));
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы фильмов с наибольшим числом лайков в окне.
+     *
+     * @param window окно
+     * @param count  количество фильмов
+     * @return идентификаторы фильмов по убыванию числа лайков в окне
+     */
+    public List<Integer> getTopFilmIds(Window window, int count) {
+        List<Integer> result = new ArrayList<>();
+        Iterator<Entry> iterator = rankings.get(window).iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            result.add(iterator.next().filmId());
+        }
+        return result;
+    }
+
+    private void change(int filmId, Instant createdAt, int delta) {
+        long now = currentHour();
+        long hour = hourOf(createdAt);
+        if (hour <= now - BUCKETS) {
+            return;
+        }
+
+        while (true) {
+            FilmCounter counter = counters.computeIfAbsent(filmId, id -> new FilmCounter());
+            synchronized (counter) {
+                if (counters.get(filmId) != counter) {
+                    continue; // счётчик только что удалён при сдвиге окон - берём новый
+                }
+                counter.put(hour, delta, now);
+                refresh(filmId, counter, now);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Пересчитывает суммы по окнам и переставляет фильм в рейтингах. Вызывается под блокировкой счётчика.
+     */
+    private void refresh(int filmId, FilmCounter counter, long now) {
+        for (Window window : Window.values()) {
+            int i = window.ordinal();
+            long before = counter.totals[i];
+            long after = counter.sum(now, window.hours);
+            if (before == after) {
+                continue;
+            }
+            ConcurrentSkipListSet<Entry> ranking = rankings.get(window);
+            if (before > 0) {
+                ranking.remove(new Entry(before, filmId));
+            }
+            if (after > 0) {
+                ranking.add(new Entry(after, filmId));
+            }
+            counter.totals[i] = after;
+        }
+    }
+
+    private long currentHour() {
+        return clock.millis() / BUCKET_MILLIS;
+    }
+
+    private static long hourOf(Instant instant) {
+        return instant.toEpochMilli() / BUCKET_MILLIS;
+    }
+
+    /**
+     * Кольцевой буфер часовых корзин одного фильма.
+     */
+    private static final class FilmCounter {
+        private final int[] counts = new int[BUCKETS];
+        private final long[] hours = new long[BUCKETS];
+        private final long[] totals = new long[Window.values().length];
+
+        private FilmCounter() {
+            Arrays.fill(hours, Long.MIN_VALUE);
+        }
+
+        private void put(long hour, int delta, long now) {
+            int slot = (int) Math.floorMod(hour, (long) BUCKETS);
+            if (hours[slot] != hour) {
+                if (delta < 0 || hour <= now - BUCKETS) {
+                    return; // корзина уже вышла из всех окон
+                }
+                hours[slot] = hour;
+                counts[slot] = 0;
+            }
+            counts[slot] = Math.max(0, counts[slot] + delta);
+        }
+
+        private long sum(long now, int windowHours) {
+            long sum = 0;
+            for (int slot = 0; slot < BUCKETS; slot++) {
+                if (hours[slot] > now - windowHours) {
+                    sum += counts[slot];
+                }
+            }
+            return sum;
+        }
+
+        private boolean isEmpty() {
+            return totals[Window.WEEK.ordinal()] == 0;
+        }
+    }
+
+    private record Entry(long likes, int filmId) {
+    }
+}
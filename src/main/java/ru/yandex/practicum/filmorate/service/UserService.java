@@ -2,14 +2,19 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.FriendRepository;
 import ru.yandex.practicum.filmorate.repository.FriendshipStatusRepository;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Сервисный класс для работы с пользователями.
@@ -21,7 +26,13 @@ import java.util.List;
 public class UserService {
     private final FriendRepository friendRepository;
     private final UserRepository userRepository;
+    private final FilmRepository filmRepository;
     private final FriendshipStatusRepository statusRepository;
+    private final FilmLikesMatrix likesMatrix;
+    private final FilmPopularityIndex popularityIndex;
+    private final TrendingFilmsIndex trendingIndex;
+    private final RequestCoalescer coalescer;
+    private final FriendGraph friendGraph;
 
     /**
      * Получает список всех пользователей.
@@ -32,15 +43,29 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Получает страницу пользователей, упорядоченных по идентификатору.
+     *
+     * @param cursor курсор, полученный с предыдущей страницей, или null для первой страницы
+     * @param limit  размер страницы
+     * @return страница пользователей с курсором следующей страницы
+     */
+    public Page<User> findPage(String cursor, int limit) {
+        PageCursor.validateLimit(limit);
+        List<User> rows = userRepository.findPage(PageCursor.decode(cursor), limit + 1);
+        return PageCursor.toPage(rows, limit, User::getId);
+    }
+
     /**
      * Находит пользователя по его идентификатору.
      *
      * @param id идентификатор пользователя
-     * @return найденный объект {@link User}
+     * @return найденный объект {@link User}; может быть общим для одновременных вызовов и не должен изменяться
      * @throws NotFoundException если пользователь с указанным id не найден
      */
     public User findById(Integer id) {
-        return userRepository.findById(id)
+        // Одновременные запросы одного пользователя разделяют одно обращение к базе
+        return coalescer.execute("users.findById", id, () -> userRepository.findById(id))
                 .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
     }
 
@@ -85,16 +110,38 @@ public class UserService {
      * @throws NotFoundException если пользователь с указанным id не найден
      */
     public User update(User user) {
-        findById(user.getId()); // Проверка существования пользователя
+        // Проверка существования пользователя без загрузки его данных и друзей
+        if (!userRepository.existsById(user.getId())) {
+            throw new NotFoundException("User not found with id: " + user.getId());
+        }
         return userRepository.update(user);
     }
 
     /**
-     * Удаляет пользователя по идентификатору.
+     * Удаляет пользователя по идентификатору вместе с его лайками и связями дружбы.
      *
      * @param id идентификатор пользователя для удаления
      */
+    @Transactional
     public void delete(Integer id) {
+        // Лайки удаляются до пользователя, чтобы уменьшить счётчики фильмов, а не потерять их в каскаде
+        Map<Integer, Instant> likes = filmRepository.removeLikesByUser(id);
+        // Строки графа неизменяемы - снимок связей в обе стороны до удаления
+        FriendGraph.Row outgoing = friendGraph.friendsOf(id);
+        FriendGraph.Row incoming = friendGraph.incomingOf(id);
         userRepository.delete(id);
+        TransactionHooks.afterCommit(() -> {
+            likes.forEach((filmId, likedAt) -> {
+                popularityIndex.decrement(filmId);
+                trendingIndex.removeLike(filmId, likedAt);
+            });
+            likesMatrix.removeUser(id);
+            for (int i = 0; i < outgoing.size(); i++) {
+                friendGraph.removeFriend(id, outgoing.friendId(i));
+            }
+            for (int i = 0; i < incoming.size(); i++) {
+                friendGraph.removeFriend(incoming.friendId(i), id);
+            }
+        });
     }
 }
\ No newline at end of file
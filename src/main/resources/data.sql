@@ -65,4 +65,10 @@ MERGE INTO friendship (user_id, friend_id, status_id) VALUES
 
 -- Сброс sequence для автоинкремента (чтобы новые записи начинались с правильного ID)
 ALTER TABLE users ALTER COLUMN id RESTART WITH 16;
-ALTER TABLE films ALTER COLUMN id RESTART WITH 17;
\ No newline at end of file
+ALTER TABLE films ALTER COLUMN id RESTART WITH 17;
+
+-- Пересчёт денормализованных счётчиков лайков по таблице likes
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);
+
+-- Пересчёт денормализованных счётчиков друзей по таблице friendship
+UPDATE users u SET friends_count = (SELECT COUNT(*) FROM friendship f WHERE f.user_id = u.id);
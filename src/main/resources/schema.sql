@@ -5,6 +5,7 @@ CREATE TABLE IF NOT EXISTS users (
     login VARCHAR(50) NOT NULL,
     name VARCHAR(100),
     birthday DATE NOT NULL,
+    friends_count INTEGER DEFAULT 0 NOT NULL,
     CONSTRAINT uq_user_email UNIQUE (email),
     CONSTRAINT uq_user_login UNIQUE (login)
 );
@@ -32,10 +33,20 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
     mpa_rating_id INTEGER NOT NULL,
+    likes_count INTEGER DEFAULT 0 NOT NULL,
     CONSTRAINT fk_film_mpa FOREIGN KEY (mpa_rating_id) REFERENCES mpa_rating(id),
     CONSTRAINT chk_film_duration CHECK (duration > 0)
 );
 
+-- Денормализованный счётчик лайков (для баз, созданных до его появления)
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+
+-- Индекс для выборки самых популярных фильмов без агрегации по таблице лайков
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films (likes_count DESC, id);
+
+-- Индекс для фильтрации популярных фильмов по рейтингу MPA и году выхода
+CREATE INDEX IF NOT EXISTS idx_films_mpa_release ON films (mpa_rating_id, release_date);
+
 -- Создание таблицы связи фильмов и жанров
 CREATE TABLE IF NOT EXISTS film_genre (
     film_id INTEGER NOT NULL,
@@ -45,15 +56,25 @@ CREATE TABLE IF NOT EXISTS film_genre (
     CONSTRAINT fk_fg_genre FOREIGN KEY (genre_id) REFERENCES genre(id)
 );
 
+-- Индекс для выборки фильмов по жанру (PK покрывает только поиск по film_id)
+CREATE INDEX IF NOT EXISTS idx_film_genre_genre ON film_genre (genre_id, film_id);
+
 -- Создание таблицы лайков
 CREATE TABLE IF NOT EXISTS likes (
     film_id INTEGER NOT NULL,
     user_id INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     PRIMARY KEY (film_id, user_id),
     CONSTRAINT fk_like_film FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE,
     CONSTRAINT fk_like_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Время постановки лайка (для баз, созданных до его появления)
+ALTER TABLE likes ADD COLUMN IF NOT EXISTS created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+-- Индекс для загрузки недавних лайков при построении счётчиков трендов
+CREATE INDEX IF NOT EXISTS idx_likes_created_at ON likes (created_at);
+
 -- Создание таблицы статусов дружбы
 CREATE TABLE IF NOT EXISTS friendship_status (
     id INTEGER PRIMARY KEY,
@@ -71,4 +92,10 @@ CREATE TABLE IF NOT EXISTS friendship (
     CONSTRAINT fk_friendship_friend FOREIGN KEY (friend_id) REFERENCES users(id) ON DELETE CASCADE,
     CONSTRAINT fk_friendship_status FOREIGN KEY (status_id) REFERENCES friendship_status(id),
     CONSTRAINT chk_friendship_not_self CHECK (user_id <> friend_id)
-);
\ No newline at end of file
+);
+
+-- Индекс для обратных проверок и входящих заявок: кто добавил пользователя в друзья и с каким статусом
+CREATE INDEX IF NOT EXISTS idx_friendship_friend_status ON friendship (friend_id, status_id, user_id);
+
+-- Денормализованный счётчик исходящих связей дружбы (для баз, созданных до его появления)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS friends_count INTEGER DEFAULT 0 NOT NULL;
\ No newline at end of file
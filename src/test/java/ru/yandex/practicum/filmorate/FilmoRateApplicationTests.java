@@ -8,7 +8,10 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.JdbcFriendshipStatusRepository;
+import ru.yandex.practicum.filmorate.repository.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.repository.JdbcMpaRepository;
 import ru.yandex.practicum.filmorate.repository.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
 
 import java.util.Optional;
 
@@ -17,7 +20,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({JdbcUserRepository.class, JdbcFriendshipStatusRepository.class})
+@Import({JdbcUserRepository.class, JdbcFriendshipStatusRepository.class, ReferenceDataCache.class,
+        JdbcGenreRepository.class, JdbcMpaRepository.class})
 class FilmoRateApplicationTests {
     private final JdbcUserRepository jdbcUserRepository;
 
@@ -4,7 +4,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -24,4 +28,82 @@ class FilmControllerTest {
                 .andExpect(jsonPath("$.error").value("Not found"));
     }
 
+    @Test
+    void shouldReturnFilmsPageWithNextCursor() throws Exception {
+        String cursor = mockMvc.perform(get("/films").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/films").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3));
+    }
+
+    @Test
+    void shouldExportFilmsAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 6);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[0].contains("\"genres\":[{"));
+    }
+
+    @Test
+    void shouldImportFilmsAndReportInvalidOnes() throws Exception {
+        String films = "[" +
+                "{\"name\":\"Bulk 1\",\"description\":\"d\",\"releaseDate\":\"2001-01-01\"," +
+                "\"duration\":90,\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2}]}," +
+                "{\"name\":\"Bulk 2\",\"description\":\"d\",\"releaseDate\":\"2001-01-01\"," +
+                "\"duration\":90,\"mpa\":{\"id\":99}}," +
+                "{\"name\":\"Bulk 3\",\"description\":\"d\",\"releaseDate\":\"2001-01-01\"," +
+                "\"duration\":90,\"mpa\":{\"id\":2}}" +
+                "]";
+
+        mockMvc.perform(post("/films/bulk").contentType(MediaType.APPLICATION_JSON).content(films))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].id").isNumber())
+                .andExpect(jsonPath("$.items[1].error").exists())
+                .andExpect(jsonPath("$.items[2].id").isNumber());
+    }
+
+    @Test
+    void shouldMapLikeConflictsToExistingStatuses() throws Exception {
+        mockMvc.perform(put("/films/6/like/2")).andExpect(status().isOk());
+        mockMvc.perform(put("/films/6/like/2")).andExpect(status().isBadRequest());
+        mockMvc.perform(put("/films/6/like/9999")).andExpect(status().isNotFound());
+        mockMvc.perform(put("/films/9999/like/2")).andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/films/6/like/2")).andExpect(status().isOk());
+        mockMvc.perform(delete("/films/6/like/2")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRejectPopularAndTrendingCountOutsideLimit() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "1001").param("year", "1994"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/trending").param("count", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "2")).andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/films").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
 }
\ No newline at end of file
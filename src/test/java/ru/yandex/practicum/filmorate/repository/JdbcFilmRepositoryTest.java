@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({JdbcFilmRepository.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        JdbcFriendshipStatusRepository.class, ReferenceDataCache.class, StatementCounter.class})
+class JdbcFilmRepositoryTest {
+    private static final int EXTRA_FILMS = 25;
+
+    private final JdbcFilmRepository filmRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatementCounter statementCounter;
+    private final ReferenceDataCache referenceData;
+
+    @Test
+    void findAllShouldNotDependOnNumberOfFilms() {
+        statementCounter.reset();
+        List<Film> before = filmRepository.findAll();
+        int statementsBefore = statementCounter.get();
+
+        addFilmsWithGenre(EXTRA_FILMS);
+
+        statementCounter.reset();
+        List<Film> after = filmRepository.findAll();
+
+        assertThat(after).hasSize(before.size() + EXTRA_FILMS);
+        assertThat(after).allSatisfy(film -> assertThat(film.getGenres()).isNotEmpty());
+        assertThat(statementCounter.get())
+                .isEqualTo(statementsBefore)
+                .isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void getPopularFilmsShouldNotDependOnCount() {
+        addFilmsWithGenre(EXTRA_FILMS);
+
+        statementCounter.reset();
+        List<Film> popular = filmRepository.getPopularFilms(EXTRA_FILMS);
+
+        assertThat(popular).hasSize(EXTRA_FILMS);
+        assertThat(popular).allSatisfy(film -> assertThat(film.getGenres()).isNotEmpty());
+        assertThat(statementCounter.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void likesCountShouldFollowLikesAndBeRepairable() {
+        Instant likedAt = Instant.parse("2024-05-10T12:00:00Z");
+        filmRepository.addLike(2, 5, likedAt);
+        assertThat(likesCount(2)).isEqualTo(3);
+
+        assertThat(filmRepository.removeLike(2, 5)).contains(likedAt);
+        assertThat(filmRepository.removeLike(2, 5)).isEmpty();
+        assertThat(likesCount(2)).isEqualTo(2);
+
+        jdbcTemplate.update("UPDATE films SET likes_count = 100 WHERE id = 2");
+        assertThat(filmRepository.getPopularFilms(1).get(0).getId()).isEqualTo(2);
+
+        assertThat(filmRepository.recalculateLikesCounts()).isEqualTo(1);
+        assertThat(likesCount(2)).isEqualTo(2);
+        assertThat(filmRepository.getPopularFilms(1).get(0).getId()).isEqualTo(5);
+    }
+
+    @Test
+    void removeLikesByUserShouldDecrementLikedFilmsOnly() {
+        // Пользователь 5 лайкнул фильмы 3, 4 и 5 (data.sql)
+        assertThat(filmRepository.removeLikesByUser(5)).containsOnlyKeys(3, 4, 5);
+        assertThat(filmRepository.removeLikesByUser(5)).isEmpty();
+
+        assertThat(likesCount(3)).isEqualTo(2);
+        assertThat(likesCount(5)).isEqualTo(3);
+        assertThat(likesCount(1)).isEqualTo(3);
+        assertThat(filmRepository.recalculateLikesCounts()).isZero();
+    }
+
+    @Test
+    void getPopularFilmsShouldApplyFilters() {
+        assertThat(filmRepository.getPopularFilms(10, 2, null, null))
+                .extracting(Film::getId).containsExactly(5, 2, 4);
+        assertThat(filmRepository.getPopularFilms(10, null, 4, null))
+                .extracting(Film::getId).containsExactly(1, 4, 6);
+        assertThat(filmRepository.getPopularFilms(10, null, null, 1994))
+                .extracting(Film::getId).containsExactly(2, 4);
+        assertThat(filmRepository.getPopularFilms(10, 2, 4, 1994))
+                .extracting(Film::getId).containsExactly(4);
+        assertThat(filmRepository.getPopularFilms(1, 2, null, null))
+                .extracting(Film::getId).containsExactly(5);
+    }
+
+    @Test
+    void updateShouldApplyOnlyGenreDiffAndNotRereadFilm() {
+        Film film = filmRepository.findById(1).orElseThrow();
+        film.setName("Крепкий орешек 2");
+        film.setGenres(new LinkedHashSet<>(List.of(new Genre(4, null), new Genre(1, null))));
+
+        statementCounter.reset();
+        Film updated = filmRepository.update(film);
+
+        // UPDATE films, чтение текущих жанров, пакетные DELETE и INSERT
+        assertThat(statementCounter.get()).isLessThanOrEqualTo(4);
+        assertThat(updated.getGenres()).extracting(Genre::getId).containsExactly(1, 4);
+        assertThat(updated.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Триллер");
+
+        Film reloaded = filmRepository.findById(1).orElseThrow();
+        assertThat(reloaded.getName()).isEqualTo("Крепкий орешек 2");
+        assertThat(reloaded.getGenres()).extracting(Genre::getId).containsExactly(1, 4);
+        assertThat(reloaded.getMpa().getName()).isEqualTo(updated.getMpa().getName());
+    }
+
+    @Test
+    void updateShouldNotExposeCachedReferenceData() {
+        Film film = filmRepository.findById(1).orElseThrow();
+        film.setGenres(new LinkedHashSet<>(List.of(new Genre(1, null))));
+
+        Film updated = filmRepository.update(film);
+        updated.getMpa().setCode("changed");
+        updated.getGenres().iterator().next().setName("changed");
+
+        assertThat(referenceData.findMpa(updated.getMpa().getId()).orElseThrow().getCode()).isNotEqualTo("changed");
+        assertThat(referenceData.findGenre(1).orElseThrow().getName()).isEqualTo("Комедия");
+    }
+
+    @Test
+    void updateShouldFailForUnknownFilm() {
+        Film film = filmRepository.findById(1).orElseThrow();
+        film.setId(9999);
+
+        assertThatThrownBy(() -> filmRepository.update(film)).isInstanceOf(NotFoundException.class);
+    }
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
+    private void addFilmsWithGenre(int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_rating_id) " +
+                    "VALUES (?, ?, DATE '2000-01-01', 100, 1)", "Film " + i, "Description " + i);
+            Integer filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+            jdbcTemplate.update("INSERT INTO film_genre (film_id, genre_id) VALUES (?, 1)", filmId);
+        }
+    }
+}
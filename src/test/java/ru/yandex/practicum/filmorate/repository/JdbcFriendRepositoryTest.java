@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({JdbcFriendRepository.class, JdbcUserRepository.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        JdbcFriendshipStatusRepository.class, ReferenceDataCache.class})
+class JdbcFriendRepositoryTest {
+    private static final int PENDING = 1;
+    private static final int CONFIRMED = 2;
+
+    private final JdbcFriendRepository friendRepository;
+    private final JdbcUserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void friendsPageAndCounterShouldFollowWrites() {
+        List<Integer> ids = addUsers(4);
+        int userId = ids.get(0);
+        for (int friendId : ids.subList(1, 4)) {
+            friendRepository.addFriend(userId, friendId, PENDING);
+        }
+
+        assertThat(friendRepository.findFriendsPage(userId, 0, 2))
+                .extracting(User::getId).containsExactly(ids.get(1), ids.get(2));
+        assertThat(friendRepository.findFriendsPage(userId, ids.get(2), 2))
+                .extracting(User::getId).containsExactly(ids.get(3));
+        assertThat(userRepository.getFriendsCount(userId)).contains(3);
+
+        friendRepository.removeFriend(userId, ids.get(1));
+        friendRepository.removeFriend(userId, ids.get(1));
+        userRepository.delete(ids.get(3));
+
+        assertThat(userRepository.getFriendsCount(userId)).contains(1);
+        assertThat(friendRepository.recalculateFriendsCounts()).isZero();
+    }
+
+    @Test
+    void incomingRequestsShouldListPendingSendersInPages() {
+        List<Integer> ids = addUsers(4);
+        int userId = ids.get(0);
+        friendRepository.addFriend(ids.get(1), userId, PENDING);
+        friendRepository.addFriend(ids.get(2), userId, PENDING);
+        friendRepository.addFriend(ids.get(3), userId, CONFIRMED);
+
+        assertThat(friendRepository.findIncomingRequests(userId, 0, 10))
+                .extracting(User::getId).containsExactly(ids.get(1), ids.get(2));
+        assertThat(friendRepository.findIncomingRequests(userId, ids.get(1), 1))
+                .extracting(User::getId).containsExactly(ids.get(2));
+        assertThat(friendRepository.hasPendingRequest(ids.get(1), userId)).isTrue();
+        assertThat(friendRepository.hasPendingRequest(ids.get(3), userId)).isFalse();
+        assertThat(friendRepository.friendshipExists(userId, ids.get(3))).isTrue();
+        assertThat(friendRepository.friendshipExists(ids.get(1), ids.get(2))).isFalse();
+    }
+
+    @Test
+    void pendingRequestsShouldBeConfirmedAndDeclinedInBatches() {
+        List<Integer> ids = addUsers(5);
+        int userId = ids.get(0);
+        for (int requesterId : ids.subList(1, 5)) {
+            friendRepository.addFriend(requesterId, userId, PENDING);
+        }
+        friendRepository.updateFriendshipStatus(ids.get(4), userId, CONFIRMED);
+
+        assertThat(friendRepository.findPendingRequesters(userId, ids))
+                .containsExactlyInAnyOrder(ids.get(1), ids.get(2), ids.get(3));
+
+        assertThat(friendRepository.confirmRequests(userId, List.of(ids.get(1), ids.get(2)), CONFIRMED))
+                .containsExactlyInAnyOrder(ids.get(1), ids.get(2));
+        // Уже подтверждённая дружба не удаляется и не уменьшает счётчик
+        assertThat(friendRepository.declineRequests(userId, List.of(ids.get(3), ids.get(4))))
+                .containsExactly(ids.get(3));
+        assertThat(friendRepository.declineRequests(userId, List.of(ids.get(3)))).isEmpty();
+
+        assertThat(friendRepository.findPendingRequesters(userId, ids)).isEmpty();
+        assertThat(friendRepository.getFriendshipStatus(ids.get(1), userId)).contains(CONFIRMED);
+        assertThat(friendRepository.getFriendshipStatus(ids.get(3), userId)).isEmpty();
+        assertThat(friendRepository.getFriendshipStatus(ids.get(4), userId)).contains(CONFIRMED);
+        assertThat(userRepository.getFriendsCount(ids.get(3))).contains(0);
+        assertThat(userRepository.getFriendsCount(ids.get(4))).contains(1);
+        assertThat(friendRepository.recalculateFriendsCounts()).isZero();
+    }
+
+    @Test
+    void reverseLookupsShouldNotScanFriendshipTable() {
+        assertThat(explain(JdbcFriendRepository.FRIENDSHIP_EXISTS_SQL, 1, 2, 1, 2))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(explain(JdbcFriendRepository.PENDING_REQUEST_SQL, 2, PENDING, 1))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(explain(JdbcFriendRepository.INCOMING_REQUESTS_SQL, 2, PENDING, 0, 10))
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    /**
+     * План выполнения запроса в H2: полное сканирование таблицы отображается как tableScan.
+     */
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    private List<Integer> addUsers(int count) {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Integer.class);
+        for (int i = 1; i <= count; i++) {
+            int n = maxId + i;
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, '1990-01-01')",
+                    "friend" + n + "@mail.ru", "friend" + n, "Friend " + n);
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE id > ? ORDER BY id", Integer.class, maxId);
+    }
+}
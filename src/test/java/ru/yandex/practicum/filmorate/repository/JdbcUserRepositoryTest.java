@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({JdbcUserRepository.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        JdbcFriendshipStatusRepository.class, ReferenceDataCache.class, StatementCounter.class})
+class JdbcUserRepositoryTest {
+    private static final int EXTRA_USERS = 25;
+
+    private final JdbcUserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatementCounter statementCounter;
+
+    @Test
+    void findAllShouldNotDependOnNumberOfUsersAndFriends() {
+        addUsersWithFriends(3);
+        statementCounter.reset();
+        userRepository.findAll();
+        int statementsBefore = statementCounter.get();
+
+        List<Integer> ids = addUsersWithFriends(EXTRA_USERS);
+
+        statementCounter.reset();
+        List<User> users = userRepository.findAll();
+
+        assertThat(statementCounter.get())
+                .isEqualTo(statementsBefore)
+                .isLessThanOrEqualTo(2);
+        assertThat(users)
+                .filteredOn(user -> ids.contains(user.getId()))
+                .hasSize(EXTRA_USERS)
+                .allSatisfy(user -> assertThat(user.getFriends()).hasSize(2));
+    }
+
+    @Test
+    void findPageAndFindByIdShouldLoadFriendsWithStatuses() {
+        List<Integer> ids = addUsersWithFriends(3);
+
+        statementCounter.reset();
+        List<User> page = userRepository.findPage(ids.get(0) - 1, 3);
+        assertThat(statementCounter.get()).isLessThanOrEqualTo(2);
+
+        assertThat(page).extracting(User::getId).containsExactlyElementsOf(ids);
+        User first = userRepository.findById(ids.get(0)).orElseThrow();
+        assertThat(first.getFriends()).containsOnlyKeys(ids.get(1), ids.get(2));
+        assertThat(first.getFriends().get(ids.get(1)).getName()).isEqualTo("CONFIRMED");
+        assertThat(first.getFriends().get(ids.get(2)).getName()).isEqualTo("PENDING");
+    }
+
+    @Test
+    void findRowsByIdsShouldNotLoadFriends() {
+        List<Integer> ids = addUsersWithFriends(3);
+
+        statementCounter.reset();
+        List<User> users = userRepository.findRowsByIds(List.of(ids.get(2), ids.get(0)));
+
+        assertThat(statementCounter.get()).isEqualTo(1);
+        assertThat(users).extracting(User::getId).containsExactly(ids.get(2), ids.get(0));
+        assertThat(users).allSatisfy(user -> assertThat(user.getFriends()).isEmpty());
+    }
+
+    @Test
+    void findMissingIdsShouldCheckAllIdsInOneStatement() {
+        List<Integer> ids = addUsersWithFriends(3);
+        int absentId = ids.get(2) + 1000;
+
+        statementCounter.reset();
+        Set<Integer> missing = userRepository.findMissingIds(List.of(absentId, ids.get(0), ids.get(2), absentId + 1));
+
+        assertThat(statementCounter.get()).isEqualTo(1);
+        assertThat(missing).containsExactly(absentId, absentId + 1);
+        assertThat(userRepository.findMissingIds(ids)).isEmpty();
+    }
+
+    /**
+     * Добавляет пользователей, каждый из которых дружит с двумя следующими по кругу:
+     * с первым - подтверждённо, со вторым - в ожидании подтверждения.
+     */
+    private List<Integer> addUsersWithFriends(int count) {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Integer.class);
+        for (int i = 1; i <= count; i++) {
+            int n = maxId + i;
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, '1990-01-01')",
+                    "user" + n + "@mail.ru", "user" + n, "User " + n);
+        }
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM users WHERE id > ? ORDER BY id",
+                Integer.class, maxId);
+        for (int i = 0; i < ids.size(); i++) {
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id, status_id) VALUES (?, ?, 2)",
+                    ids.get(i), ids.get((i + 1) % ids.size()));
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id, status_id) VALUES (?, ?, 1)",
+                    ids.get(i), ids.get((i + 2) % ids.size()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FilmCacheTest {
+    private static final Instant NOW = Instant.parse("2024-05-10T12:00:00Z");
+
+    private FilmRepository filmRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private FilmCache cache;
+
+    @BeforeEach
+    void setUp() {
+        filmRepository = mock(FilmRepository.class);
+        when(filmRepository.findById(anyInt())).thenAnswer(invocation -> Optional.of(film(invocation.getArgument(0))));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new FilmCache(filmRepository, meterRegistry, 2, Duration.ofMinutes(10), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldLoadOnceAndServeCopies() {
+        Film loaded = cache.get(1).orElseThrow();
+        loaded.setName("changed");
+        loaded.getMpa().setCode("NC-17");
+        loaded.getGenres().iterator().next().setName("Драма");
+
+        Film cached = cache.get(1).orElseThrow();
+        assertThat(cached.getName()).isEqualTo("Film 1");
+        assertThat(cached.getMpa().getCode()).isEqualTo("G");
+        assertThat(cached.getGenres()).extracting(Genre::getName).containsExactly("Комедия");
+        verify(filmRepository, times(1)).findById(1);
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedAndInvalidated() {
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);   // вытесняет 2
+        cache.invalidate(1);
+
+        cache.get(3);
+        cache.get(1);
+        cache.get(2);   // вытесняет 3
+
+        verify(filmRepository, times(2)).findById(1);
+        verify(filmRepository, times(2)).findById(2);
+        verify(filmRepository, times(1)).findById(3);
+        assertThat(evictions("invalidated")).isEqualTo(1);
+        assertThat(evictions("size")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldExpireEntries() {
+        MutableClock clock = new MutableClock();
+        cache = new FilmCache(filmRepository, meterRegistry, 10, Duration.ofMinutes(10), clock);
+
+        cache.get(1);
+        clock.instant = NOW.plus(Duration.ofMinutes(11));
+        cache.get(1);
+
+        verify(filmRepository, times(2)).findById(1);
+        assertThat(evictions("expired")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesShouldShareOneLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(filmRepository.findById(1)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(film(1));
+        });
+
+        CompletableFuture<Optional<Film>> first = CompletableFuture.supplyAsync(() -> cache.get(1));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Optional<Film>> second = CompletableFuture.supplyAsync(() -> cache.get(1));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isPresent();
+        verify(filmRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void followerShouldReceiveLeaderExceptionUnwrapped() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(filmRepository.findById(1)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("database unavailable");
+        });
+
+        CompletableFuture<Optional<Film>> first = CompletableFuture.supplyAsync(() -> cache.get(1));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        // Исключение перехватывается в потоке ожидающего, чтобы supplyAsync не снял обёртку CompletionException
+        CompletableFuture<RuntimeException> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                cache.get(1);
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        });
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseExactlyInstanceOf(IllegalStateException.class);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void errorDuringLoadShouldNotLeaveLoadInFlight() {
+        when(filmRepository.findById(1)).thenThrow(new StackOverflowError()).thenReturn(Optional.of(film(1)));
+
+        assertThatThrownBy(() -> cache.get(1)).isInstanceOf(StackOverflowError.class);
+        assertThat(cache.get(1)).isPresent();
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("filmorate.film.cache.requests").tag("result", result).counter().count();
+    }
+
+    private double evictions(String cause) {
+        return meterRegistry.get("filmorate.film.cache.evictions").tag("cause", cause).counter().count();
+    }
+
+    private static Film film(int id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film " + id);
+        film.setMpa(new Mpa(1, "G", "Нет возрастных ограничений"));
+        film.getGenres().add(new Genre(1, "Комедия"));
+        return film;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant = NOW;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmPopularityIndexTest {
+    private FilmRepository filmRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private FilmPopularityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        filmRepository = mock(FilmRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(filmRepository.getLikesCounts()).thenReturn(Map.of(1, 3, 2, 2, 3, 5));
+        index = new FilmPopularityIndex(filmRepository, meterRegistry);
+        index.rebuild();
+    }
+
+    @Test
+    void shouldReturnTopFilmsOrderedByLikesThenId() {
+        index.addFilm(4);
+        index.increment(2);
+
+        assertThat(index.getTopFilmIds(3)).containsExactly(3, 1, 2);
+        assertThat(index.getTopFilmIds(10)).containsExactly(3, 1, 2, 4);
+    }
+
+    @Test
+    void shouldMoveFilmWhenLikesChange() {
+        index.increment(2);
+        index.increment(2);
+        index.increment(2);
+        index.decrement(3);
+
+        assertThat(index.getTopFilmIds(2)).containsExactly(2, 3);
+        assertThat(index.getLikes(2)).isEqualTo(5);
+    }
+
+    @Test
+    void verifyShouldFixDriftAndReportIt() {
+        index.increment(1);
+        index.addFilm(42);
+        when(filmRepository.getLikesCounts()).thenReturn(Map.of(1, 3, 2, 2, 3, 5, 7, 1));
+
+        assertThat(index.verify()).isEqualTo(3);
+        assertThat(index.getTopFilmIds(10)).isEqualTo(List.of(3, 1, 2, 7));
+        assertThat(meterRegistry.get("filmorate.popularity.index.drift").gauge().value()).isEqualTo(3);
+        assertThat(index.verify()).isZero();
+    }
+
+    @Test
+    void verifyShouldNotOverwriteLikeAppliedDuringDatabaseRead() {
+        // Лайк закоммичен и применён к индексу уже после того, как сверка прочитала счётчики
+        when(filmRepository.getLikesCounts()).thenAnswer(invocation -> {
+            index.increment(1);
+            index.remove(3);
+            return Map.of(1, 3, 2, 4, 3, 5);
+        });
+
+        assertThat(index.verify()).isEqualTo(1);
+        assertThat(index.getLikes(1)).isEqualTo(4);
+        assertThat(index.getLikes(2)).isEqualTo(4);
+        assertThat(index.getTopFilmIds(10)).containsExactly(1, 2);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FilmSearchIndexTest {
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Film> action = invocation.getArgument(1);
+            action.accept(film(1, "Старые истории", "Фильм о старой истории одной семьи"));
+            action.accept(film(2, "Ночной город", "Истории людей большого города"));
+            action.accept(film(3, "Love Stories", "Three stories about loving people"));
+            return null;
+        }).when(filmRepository).forEachFilm(anyInt(), any());
+
+        index = new FilmSearchIndex(filmRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void shouldMatchWordFormsAndRankNameMatchesFirst() {
+        assertThat(index.search("история", 0, 10)).containsExactly(1, 2);
+        assertThat(index.search("ГОРОДА", 0, 10)).containsExactly(2);
+        assertThat(index.search("story love", 0, 10)).containsExactly(3);
+    }
+
+    @Test
+    void shouldPageResults() {
+        assertThat(index.search("истории", 1, 1)).containsExactly(2);
+        assertThat(index.search("истории", 2, 1)).isEmpty();
+    }
+
+    @Test
+    void shouldFollowFilmChanges() {
+        index.index(film(2, "Ночной экспресс", "Поезд"));
+        index.index(film(4, "Городские истории", null));
+        index.remove(1);
+
+        assertThat(index.search("городские", 0, 10)).containsExactly(4);
+        assertThat(index.search("истории", 0, 10)).containsExactly(4);
+        assertThat(index.search("ночной поезд", 0, 10)).containsExactly(2);
+        assertThat(index.search("!!!", 0, 10)).isEqualTo(List.of());
+    }
+
+    private static Film film(int id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
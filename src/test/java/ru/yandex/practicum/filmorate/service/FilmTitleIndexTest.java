@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmTitleIndexTest {
+    private FilmPopularityIndex popularityIndex;
+    private FilmTitleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        when(filmRepository.getLikesCounts()).thenReturn(Map.of(1, 1, 2, 5, 3, 3, 4, 0));
+        doAnswer(invocation -> {
+            Consumer<Film> action = invocation.getArgument(1);
+            action.accept(film(1, "Star Wars"));
+            action.accept(film(2, "Star Trek"));
+            action.accept(film(3, "Stalker"));
+            action.accept(film(4, "Ёлки"));
+            return null;
+        }).when(filmRepository).forEachFilm(anyInt(), any());
+
+        popularityIndex = new FilmPopularityIndex(filmRepository, new SimpleMeterRegistry());
+        popularityIndex.rebuild();
+        index = new FilmTitleIndex(filmRepository, popularityIndex);
+        index.rebuild();
+    }
+
+    @Test
+    void shouldSuggestByPrefixOrderedByLikes() {
+        assertThat(index.suggest("sta", 10)).extracting(FilmSuggestion::getId).containsExactly(2, 3, 1);
+        assertThat(index.suggest("STAR ", 1)).extracting(FilmSuggestion::getName).containsExactly("Star Trek");
+        assertThat(index.suggest("елк", 10)).extracting(FilmSuggestion::getId).containsExactly(4);
+        assertThat(index.suggest("x", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFollowFilmChanges() {
+        index.index(film(2, "Interstellar"));
+        index.remove(3);
+        popularityIndex.increment(1);
+
+        assertThat(index.suggest("st", 10)).extracting(FilmSuggestion::getId).containsExactly(1);
+        assertThat(index.suggest("st", 10).get(0).getLikes()).isEqualTo(2);
+        assertThat(index.suggest("inter", 10)).extracting(FilmSuggestion::getId).containsExactly(2);
+    }
+
+    @Test
+    void shouldFallBackToTitleRangeWhenPopularFilmsDoNotMatch() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        Map<Integer, Integer> likes = new HashMap<>();
+        for (int id = 1; id <= 12_500; id++) {
+            likes.put(id, id <= 10_000 ? 10 : 0);
+        }
+        when(filmRepository.getLikesCounts()).thenReturn(likes);
+        doAnswer(invocation -> {
+            Consumer<Film> action = invocation.getArgument(1);
+            for (int id = 1; id <= 12_500; id++) {
+                action.accept(film(id, id <= 10_000 ? "Popular " + id : "Rare " + id));
+            }
+            return null;
+        }).when(filmRepository).forEachFilm(anyInt(), any());
+        FilmPopularityIndex popularity = new FilmPopularityIndex(filmRepository, new SimpleMeterRegistry());
+        popularity.rebuild();
+        FilmTitleIndex titleIndex = new FilmTitleIndex(filmRepository, popularity);
+        titleIndex.rebuild();
+
+        assertThat(titleIndex.suggest("rare", 3))
+                .hasSize(3)
+                .allSatisfy(suggestion -> assertThat(suggestion.getName()).startsWith("Rare"));
+    }
+
+    private static Film film(int id, String name) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        return film;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FriendGraphTest {
+    private static final int PENDING = 1;
+    private static final int CONFIRMED = 2;
+
+    private FriendGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        FriendRepository friendRepository = mock(FriendRepository.class);
+        doAnswer(invocation -> {
+            FriendRepository.FriendshipHandler action = invocation.getArgument(0);
+            action.accept(1, 2, CONFIRMED);
+            action.accept(1, 3, CONFIRMED);
+            action.accept(1, 5, PENDING);
+            action.accept(4, 2, CONFIRMED);
+            action.accept(4, 5, CONFIRMED);
+            action.accept(4, 6, PENDING);
+            return null;
+        }).when(friendRepository).forEachFriendship(any());
+
+        graph = new FriendGraph(friendRepository);
+        graph.rebuild();
+    }
+
+    @Test
+    void shouldFindCommonFriendsByIntersection() {
+        assertThat(graph.commonFriends(1, 4)).containsExactly(2, 5);
+        assertThat(graph.commonFriends(1, 2)).isEmpty();
+        assertThat(graph.commonFriends(1, 100)).isEmpty();
+    }
+
+    @Test
+    void shouldApplyChangesOnTopOfSnapshot() {
+        graph.addFriend(4, 3, PENDING);
+        graph.removeFriend(1, 2);
+        graph.updateStatus(1, 5, CONFIRMED);
+        graph.updateStatus(1, 7, CONFIRMED);
+        graph.addFriend(10, 3, PENDING);
+
+        assertThat(graph.commonFriends(1, 4)).containsExactly(3, 5);
+        assertThat(graph.commonFriends(10, 1)).containsExactly(3);
+        FriendGraph.Row row = graph.friendsOf(1);
+        assertThat(row.size()).isEqualTo(2);
+        assertThat(row.statusId(row.indexOf(5))).isEqualTo(CONFIRMED);
+        assertThat(row.indexOf(7)).isNegative();
+    }
+
+    @Test
+    void shouldSuggestFriendsOfFriendsByMutualCount() {
+        graph.addFriend(2, 7, CONFIRMED);
+        graph.addFriend(3, 7, CONFIRMED);
+        graph.addFriend(3, 8, CONFIRMED);
+        graph.addFriend(2, 4, CONFIRMED);
+        graph.addFriend(2, 9, CONFIRMED);
+        graph.addFriend(9, 1, PENDING);  // встречная заявка - не предлагаем
+        graph.addFriend(3, 5, CONFIRMED); // уже в друзьях (заявка пользователя 1) - не предлагаем
+
+        // 4 - общий друг через 2 и через 5 (подтверждённая связь 4 -> 5), 7 - через 2 и 3, 8 - через 3
+        assertThat(graph.suggestFriends(1, 10, 500, CONFIRMED)).containsExactly(4, 7, 8);
+        assertThat(graph.suggestFriends(1, 2, 500, CONFIRMED)).containsExactly(4, 7);
+        // Из каждой строки рассматриваются только две связи: 1 -> {2, 3}, 2 -> {1, 4}, 3 -> {1, 5}
+        assertThat(graph.suggestFriends(1, 10, 2, CONFIRMED)).containsExactly(4);
+    }
+
+    @Test
+    void shouldTreatConfirmedIncomingRequestsAsFriendsInSuggestions() {
+        // Пользователь 20 отправил заявку пользователю 1, тот подтвердил; у 20 есть друг 21,
+        // а 22 дружит с 20 через подтверждённую заявку от 22
+        graph.addFriend(20, 1, CONFIRMED);
+        graph.addFriend(20, 21, CONFIRMED);
+        graph.addFriend(22, 20, CONFIRMED);
+        // Неподтверждённая входящая заявка не делает отправителя другом
+        graph.addFriend(23, 1, PENDING);
+        graph.addFriend(23, 24, CONFIRMED);
+
+        assertThat(graph.suggestFriends(1, 10, 500, CONFIRMED)).containsExactly(4, 21, 22);
+    }
+
+    @Test
+    void shouldFindShortestConfirmedPath() {
+        Duration timeout = Duration.ofSeconds(1);
+
+        assertThat(graph.shortestPath(1, 4, CONFIRMED, 6, 1000, timeout).userIds()).containsExactly(1, 2, 4);
+        assertThat(graph.shortestPath(1, 1, CONFIRMED, 6, 1000, timeout).userIds()).containsExactly(1);
+
+        FriendGraph.PathResult tooShort = graph.shortestPath(1, 4, CONFIRMED, 1, 1000, timeout);
+        assertThat(tooShort.userIds()).isEmpty();
+        assertThat(tooShort.truncated()).isFalse();
+
+        // До пользователя 6 ведёт только неподтверждённая заявка
+        assertThat(graph.shortestPath(1, 6, CONFIRMED, 6, 1000, timeout).userIds()).isEmpty();
+
+        FriendGraph.PathResult overBudget = graph.shortestPath(1, 4, CONFIRMED, 6, 2, timeout);
+        assertThat(overBudget.userIds()).isEmpty();
+        assertThat(overBudget.truncated()).isTrue();
+    }
+
+    @Test
+    void shouldFindPathOverConfirmedRequestInBothDirections() {
+        Duration timeout = Duration.ofSeconds(1);
+        // Пользователь 10 отправил заявку пользователю 11, тот подтвердил: в базе одна строка 10 -> 11
+        graph.addFriend(10, 11, PENDING);
+        assertThat(graph.shortestPath(11, 10, CONFIRMED, 6, 1000, timeout).userIds()).isEmpty();
+
+        graph.updateStatus(10, 11, CONFIRMED);
+        graph.updateStatus(11, 10, CONFIRMED);
+
+        assertThat(graph.shortestPath(11, 10, CONFIRMED, 6, 1000, timeout).userIds()).containsExactly(11, 10);
+        assertThat(graph.shortestPath(10, 11, CONFIRMED, 6, 1000, timeout).userIds()).containsExactly(10, 11);
+
+        // Цепочка 12 -> 13 <- 14 -> 10: направления связей чередуются
+        graph.addFriend(12, 13, CONFIRMED);
+        graph.addFriend(14, 13, CONFIRMED);
+        graph.addFriend(14, 10, CONFIRMED);
+        assertThat(graph.shortestPath(12, 11, CONFIRMED, 6, 1000, timeout).userIds())
+                .containsExactly(12, 13, 14, 10, 11);
+        assertThat(graph.shortestPath(11, 12, CONFIRMED, 6, 1000, timeout).userIds())
+                .containsExactly(11, 10, 14, 13, 12);
+    }
+
+    @Test
+    void shouldRebuildIncomingEdgesFromSnapshot() {
+        FriendGraph.Row incoming = graph.incomingOf(2);
+        assertThat(incoming.size()).isEqualTo(2);
+        assertThat(incoming.friendId(0)).isEqualTo(1);
+        assertThat(incoming.friendId(1)).isEqualTo(4);
+        assertThat(graph.incomingOf(6).statusId(0)).isEqualTo(PENDING);
+        assertThat(graph.incomingOf(1).size()).isZero();
+    }
+
+    @Test
+    void shouldKeepEdgesWhenOverridesAreCompacted() {
+        for (int userId = 100; userId < 2200; userId++) {
+            graph.addFriend(userId, 2, CONFIRMED);
+            graph.addFriend(userId, userId + 1, PENDING);
+        }
+
+        assertThat(graph.commonFriends(1, 4)).containsExactly(2, 5);
+        assertThat(graph.commonFriends(150, 1)).containsExactly(2);
+        assertThat(graph.commonFriends(150, 151)).containsExactly(2);
+        assertThat(graph.friendsOf(2199).size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
+import ru.yandex.practicum.filmorate.model.BulkResult;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FriendServiceTest {
+    private static final int USER_ID = 1;
+    private static final int CONFIRMED = 2;
+
+    private FriendRepository friendRepository;
+    private FriendGraph friendGraph;
+    private FriendService service;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findMissingIds(any())).thenReturn(Set.of());
+
+        ReferenceDataCache referenceData = mock(ReferenceDataCache.class);
+        when(referenceData.getStatusByName("CONFIRMED")).thenReturn(new FriendshipStatus(CONFIRMED, "CONFIRMED"));
+
+        friendRepository = mock(FriendRepository.class);
+        // Заявка от 5 ожидала подтверждения при выборке, но была отозвана до UPDATE
+        when(friendRepository.findPendingRequesters(eq(USER_ID), any())).thenReturn(Set.of(2, 3, 5));
+        when(friendRepository.confirmRequests(eq(USER_ID), any(), anyInt())).thenReturn(Set.of(2, 3));
+        when(friendRepository.declineRequests(eq(USER_ID), any())).thenReturn(Set.of(2, 3));
+
+        friendGraph = mock(FriendGraph.class);
+        service = new FriendService(friendRepository, userRepository, referenceData, friendGraph);
+    }
+
+    @Test
+    void confirmRequestsShouldReportOutcomeOfEachRequester() {
+        BulkResult result = service.confirmRequests(USER_ID, Arrays.asList(2, null, 3, 2, 4, 5));
+
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getItems())
+                .extracting(BulkItemResult::getIndex, BulkItemResult::getId, BulkItemResult::getError)
+                .containsExactly(
+                        tuple(0, 2, null),
+                        tuple(1, null, "Requester id must not be null"),
+                        tuple(2, 3, null),
+                        tuple(3, 2, "Duplicate requester id"),
+                        tuple(4, 4, "No pending friendship request found"),
+                        tuple(5, 5, "No pending friendship request found"));
+        verify(friendRepository).confirmRequests(USER_ID, List.of(2, 3, 5), CONFIRMED);
+        verify(friendGraph).updateStatus(2, USER_ID, CONFIRMED);
+        verify(friendGraph).updateStatus(3, USER_ID, CONFIRMED);
+        verify(friendGraph, never()).updateStatus(5, USER_ID, CONFIRMED);
+    }
+
+    @Test
+    void declineRequestsShouldRemoveOnlyDeclinedRequestsFromGraph() {
+        BulkResult result = service.declineRequests(USER_ID, List.of(5, 3, 2));
+
+        assertThat(result.getItems())
+                .extracting(BulkItemResult::getId, BulkItemResult::getError)
+                .containsExactly(
+                        tuple(5, "No pending friendship request found"),
+                        tuple(3, null),
+                        tuple(2, null));
+        verify(friendGraph).removeFriend(3, USER_ID);
+        verify(friendGraph).removeFriend(2, USER_ID);
+        verify(friendGraph, never()).removeFriend(5, USER_ID);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
+import ru.yandex.practicum.filmorate.model.FriendshipImportResult;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.repository.FriendRepository;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FriendshipImportServiceTest {
+    private final List<String> written = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private FriendRepository friendRepository;
+    private FriendGraph friendGraph;
+    private FriendshipImportService service;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        doAnswer(invocation -> {
+            IntConsumer action = invocation.getArgument(0);
+            for (int id = 1; id <= 4; id++) {
+                action.accept(id);
+            }
+            return null;
+        }).when(userRepository).forEachId(any());
+
+        friendRepository = mock(FriendRepository.class);
+        doAnswer(invocation -> {
+            int[] userIds = invocation.getArgument(0);
+            int[] friendIds = invocation.getArgument(1);
+            int[] statusIds = invocation.getArgument(2);
+            int count = invocation.getArgument(3);
+            for (int i = 0; i < count; i++) {
+                written.add(userIds[i] + "->" + friendIds[i] + ":" + statusIds[i]);
+            }
+            batchSizes.add(count);
+            return null;
+        }).when(friendRepository).mergeAll(any(), any(), any(), anyInt());
+
+        ReferenceDataCache referenceData = mock(ReferenceDataCache.class);
+        when(referenceData.getStatuses()).thenReturn(List.of(
+                new FriendshipStatus(1, "PENDING"), new FriendshipStatus(2, "CONFIRMED")));
+
+        friendGraph = mock(FriendGraph.class);
+        service = new FriendshipImportService(userRepository, friendRepository, referenceData, friendGraph);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "maxReportedRejections", 3);
+    }
+
+    @Test
+    void shouldWriteValidEdgesInChunksAndReportRejected() throws Exception {
+        String csv = """
+                user_id,friend_id,status
+                1,2
+                1,3,pending
+
+                2,2
+                1,99
+                x,1
+                3,4,FRIENDS
+                4,1
+                """;
+
+        FriendshipImportResult result = service.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(written).containsExactly("1->2:2", "1->3:1", "4->1:2");
+        assertThat(batchSizes).containsExactly(2, 1);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getRejections()).extracting(BulkItemResult::getIndex).containsExactly(5, 6, 7);
+        verify(friendRepository).recalculateFriendsCounts();
+        verify(friendGraph).rebuild();
+    }
+
+    @Test
+    void shouldRejectFirstDataLineAndSecondEdgeOfPair() throws Exception {
+        // Без заголовка первая строка - данные, даже если начинается не с цифры
+        when(friendGraph.hasEdge(3, 1)).thenReturn(true);
+        ReflectionTestUtils.setField(service, "maxReportedRejections", 10);
+        String csv = "-1,2\n1,2,pending\n2,1\n1,2\n1,3\n2,3\n";
+
+        FriendshipImportResult result = service.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(written).containsExactly("1->2:1", "2->3:2");
+        assertThat(result.getRejections())
+                .extracting(BulkItemResult::getIndex, BulkItemResult::getError)
+                .containsExactly(
+                        tuple(1, "User not found with id: -1"),
+                        tuple(3, "Duplicate friendship in import: 2 and 1"),
+                        tuple(4, "Duplicate friendship in import: 1 and 2"),
+                        tuple(5, "Friendship relation already exists: 3 and 1"));
+    }
+
+    @Test
+    void shouldSkipHeaderWithByteOrderMark() throws Exception {
+        String csv = "\uFEFFuser_id,friend_id\n1,2\n";
+
+        FriendshipImportResult result = service.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(written).containsExactly("1->2:2");
+        assertThat(result.getRejected()).isZero();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class RecommendationServiceTest {
+    private FilmLikesMatrix likesMatrix;
+    private RecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        doAnswer(invocation -> {
+            BiConsumer<Integer, Integer> action = invocation.getArgument(0);
+            // пользователь 1 лайкнул фильмы 1, 2, 3
+            action.accept(1, 1);
+            action.accept(1, 2);
+            action.accept(1, 3);
+            // пользователь 2 похож сильнее всего и советует фильм 4
+            action.accept(2, 1);
+            action.accept(2, 2);
+            action.accept(2, 3);
+            action.accept(2, 4);
+            // пользователь 3 похож слабее и советует фильмы 4 и 5
+            action.accept(3, 3);
+            action.accept(3, 4);
+            action.accept(3, 5);
+            // пользователь 4 не пересекается с пользователем 1
+            action.accept(4, 6);
+            return null;
+        }).when(filmRepository).forEachLike(any());
+
+        likesMatrix = new FilmLikesMatrix(filmRepository);
+        likesMatrix.rebuild();
+        service = new RecommendationService(likesMatrix, filmRepository, mock(UserRepository.class));
+        ReflectionTestUtils.setField(service, "maxNeighbours", 20);
+    }
+
+    @Test
+    void shouldRecommendFilmsOfUsersWithOverlappingLikes() {
+        assertThat(service.recommendFilmIds(1, 10)).containsExactly(4, 5);
+        assertThat(service.recommendFilmIds(1, 1)).containsExactly(4);
+    }
+
+    @Test
+    void shouldFollowLikeChanges() {
+        likesMatrix.addLike(4, 1);
+        likesMatrix.removeLike(3, 3);
+
+        assertThat(service.recommendFilmIds(1, 10)).containsExactly(5);
+
+        likesMatrix.removeFilm(4);
+        likesMatrix.addLike(7, 2);
+
+        assertThat(service.recommendFilmIds(1, 10)).containsExactly(7);
+        assertThat(likesMatrix.filmsOf(1)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void shouldLimitCandidateSearchStartingFromLessPopularFilms() {
+        // Бюджета хватает только на лайкнувших фильм 1 (пользователи 1 и 2): фильм 3 с тремя лайками не обходится
+        ReflectionTestUtils.setField(service, "candidateBudget", 2);
+
+        assertThat(service.recommendFilmIds(1, 10)).containsExactly(4);
+    }
+
+    @Test
+    void shouldRejectLimitOutsidePageRange() {
+        assertThatThrownBy(() -> service.getRecommendations(1, 0)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.getRecommendations(1, PageCursor.MAX_LIMIT + 1))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void shouldReturnNothingForUserWithoutLikes() {
+        assertThat(service.recommendFilmIds(5, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectUnknownUser() {
+        assertThatThrownBy(() -> service.getRecommendations(99, 10))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(meterRegistry);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsWithSameKeyShouldShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<Integer>> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("films.popular", 10, () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return List.of(1, 2, 3);
+                }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<List<Integer>> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("films.popular", 10, () -> {
+                    loads.incrementAndGet();
+                    return List.of();
+                }), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly(1, 2, 3);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get());
+        assertThat(loads).hasValue(1);
+        assertThat(calls("films.popular", "leader")).isEqualTo(1);
+        assertThat(calls("films.popular", "follower")).isEqualTo(1);
+    }
+
+    @Test
+    void sequentialCallsShouldLoadAgain() {
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.execute("users.findById", 1, loads::incrementAndGet);
+        coalescer.execute("users.findById", 1, loads::incrementAndGet);
+        coalescer.execute("users.findById", 2, loads::incrementAndGet);
+
+        assertThat(loads).hasValue(3);
+        assertThat(calls("users.findById", "leader")).isEqualTo(3);
+    }
+
+    @Test
+    void followersShouldReceiveLeaderException() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("users.findById", 42, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new NotFoundException("User not found with id: 42");
+                }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("users.findById", 42, () -> "unexpected"), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void followersShouldBeReleasedWhenLeaderFailsWithError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("films.popular", 10, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new StackOverflowError();
+                }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("films.popular", 10, () -> "unexpected"), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(coalescer.execute("films.popular", 10, () -> "loaded")).isEqualTo("loaded");
+    }
+
+    private double calls(String operation, String role) {
+        return meterRegistry.get("filmorate.coalescing.calls")
+                .tag("operation", operation).tag("role", role).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
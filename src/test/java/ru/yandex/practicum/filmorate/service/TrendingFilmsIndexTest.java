@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TrendingFilmsIndexTest {
+    private static final Instant NOW = Instant.parse("2024-05-10T12:30:00Z");
+
+    private MutableClock clock;
+    private TrendingFilmsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        doAnswer(invocation -> {
+            BiConsumer<Integer, Instant> action = invocation.getArgument(1);
+            action.accept(1, NOW.minus(Duration.ofHours(2)));
+            action.accept(1, NOW.minus(Duration.ofDays(3)));
+            action.accept(2, NOW.minus(Duration.ofDays(2)));
+            action.accept(2, NOW.minus(Duration.ofDays(4)));
+            action.accept(2, NOW.minus(Duration.ofDays(5)));
+            return null;
+        }).when(filmRepository).forEachLikeSince(any(), any());
+
+        clock = new MutableClock(NOW);
+        index = new TrendingFilmsIndex(filmRepository, clock);
+        index.rebuild();
+    }
+
+    @Test
+    void shouldRankFilmsByLikesInsideWindow() {
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.DAY, 10)).containsExactly(1);
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.WEEK, 10)).containsExactly(2, 1);
+    }
+
+    @Test
+    void shouldApplyNewAndRemovedLikes() {
+        index.recordLike(3, NOW);
+        index.recordLike(3, NOW);
+        index.removeLike(1, NOW.minus(Duration.ofHours(2)));
+
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.DAY, 10)).containsExactly(3);
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.WEEK, 1)).containsExactly(2);
+    }
+
+    @Test
+    void tickShouldDropExpiredBuckets() {
+        clock.instant = NOW.plus(Duration.ofDays(1));
+        index.tick();
+
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.DAY, 10)).isEmpty();
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.WEEK, 10)).containsExactly(2, 1);
+
+        clock.instant = NOW.plus(Duration.ofDays(3));
+        index.tick();
+
+        assertThat(index.getTopFilmIds(TrendingFilmsIndex.Window.WEEK, 10)).containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldRejectUnknownWindow() {
+        assertThatThrownBy(() -> TrendingFilmsIndex.Window.parse("1y"))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}